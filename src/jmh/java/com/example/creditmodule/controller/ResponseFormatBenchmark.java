@@ -0,0 +1,105 @@
+package com.example.creditmodule.controller;
+
+import com.example.creditmodule.config.MessageConverterConfig;
+import com.example.creditmodule.dto.response.LoanInstallmentResponseDTO;
+import com.example.creditmodule.dto.response.LoanPageResponseDTO;
+import com.example.creditmodule.dto.response.LoanResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU cost of encoding a page of 100 loans and a 24 installment schedule per response format, with and without
+ * gzip. The encoded size of every combination, the bytes on the wire, is reported as the secondary result
+ * {@code bytes} next to the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private LoanPageResponseDTO loanPage;
+    private List<LoanInstallmentResponseDTO> installments;
+
+    //the size of the last encoded response, the same in every call
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long bytes;
+    }
+
+    @Setup
+    public void setUp() {
+        //the mappers the application encodes responses with: Spring Boot's for JSON, MessageConverterConfig's for the others
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(JacksonAutoConfiguration.class, MessageConverterConfig.class)) {
+            objectMapper = switch (format) {
+                case "smile" -> context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+                case "cbor" -> context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+                default -> context.getBean(ObjectMapper.class);
+            };
+        }
+
+        List<LoanResponseDTO> loans = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            loans.add(new LoanResponseDTO(id, 120_000L, 24, LocalDate.of(2025, 1, 1), false));
+        }
+        loanPage = new LoanPageResponseDTO(loans, 100L);
+        installments = new ArrayList<>();
+        LocalDate dueDate = LocalDate.of(2025, 2, 1);
+        for (long id = 1; id <= 24; id++) {
+            installments.add(new LoanInstallmentResponseDTO(id, 6_000L, 0L, dueDate, null, false));
+            dueDate = dueDate.plusMonths(1);
+        }
+    }
+
+    @Benchmark
+    public byte[] listLoans(EncodedSize size) throws IOException {
+        return encode(loanPage, size);
+    }
+
+    @Benchmark
+    public byte[] listInstallments(EncodedSize size) throws IOException {
+        return encode(installments, size);
+    }
+
+    private byte[] encode(Object response, EncodedSize size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        if (gzip) {
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+                objectMapper.writeValue(gzipOut, response);
+            }
+        } else {
+            objectMapper.writeValue(out, response);
+        }
+        byte[] encoded = out.toByteArray();
+        size.bytes = encoded.length;
+        return encoded;
+    }
+}
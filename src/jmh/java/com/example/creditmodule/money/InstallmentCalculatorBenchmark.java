@@ -0,0 +1,66 @@
+package com.example.creditmodule.money;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arithmetic of a loan schedule and of a payment. Run with the GC profiler,
+ * {@code ./gradlew jmh -PjmhIncludes=InstallmentCalculatorBenchmark -PjmhProfilers=gc},
+ * {@code gc.alloc.rate.norm} should be 0 B/op for both benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InstallmentCalculatorBenchmark {
+
+    @Param({"6", "24"})
+    public int numberOfInstallment;
+
+    private long totalAmount;
+    private LocalDate today;
+    private LocalDate[] dueDates;
+
+    @Setup
+    public void setUp() {
+        totalAmount = InstallmentCalculator.totalRepayment(1_000_001L, 0.2);
+        today = LocalDate.now();
+        //half of the schedule is overdue and half is paid early, so both penalty and discount are computed
+        dueDates = new LocalDate[numberOfInstallment];
+        LocalDate dueDate = today.minusMonths(numberOfInstallment / 2).withDayOfMonth(1);
+        for (int i = 0; i < numberOfInstallment; i++) {
+            dueDates[i] = dueDate;
+            dueDate = dueDate.plusMonths(1);
+        }
+    }
+
+    @Benchmark
+    public long schedule() {
+        long sum = 0;
+        for (int i = 0; i < numberOfInstallment; i++) {
+            sum += InstallmentCalculator.installmentAmount(totalAmount, numberOfInstallment, i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long payment() {
+        long remainingAmount = totalAmount * 2;
+        for (int i = 0; i < numberOfInstallment; i++) {
+            long amount = InstallmentCalculator.installmentAmount(totalAmount, numberOfInstallment, i);
+            long finalAmount = amount + InstallmentCalculator.adjustment(amount, dueDates[i], today);
+            if (remainingAmount >= finalAmount) {
+                remainingAmount -= finalAmount;
+            }
+        }
+        return remainingAmount;
+    }
+}
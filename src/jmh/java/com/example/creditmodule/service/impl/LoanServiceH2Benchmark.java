@@ -0,0 +1,118 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.CreditModuleApplication;
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.dto.request.ListLoansRequestDTO;
+import com.example.creditmodule.dto.response.LoanInstallmentResponseDTO;
+import com.example.creditmodule.dto.response.LoanPageResponseDTO;
+import com.example.creditmodule.dto.response.LoanResponseDTO;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.repository.LoanInstallmentRepository;
+import com.example.creditmodule.repository.LoanRepository;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The list endpoints of {@link LoanService} against the application context with an embedded H2 database.
+ * The {@code ...AsEntities} benchmarks are the entity based reads the list endpoints used before they selected
+ * DTOs directly, run them with {@code -PjmhProfilers=gc} and compare {@code gc.alloc.rate.norm} (bytes per request).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoanServiceH2Benchmark {
+
+    @Param({"100"})
+    public int numberOfLoans;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private ListLoansRequestDTO listLoansRequest;
+    private Long customerId;
+    private Long loanId;
+    private LoanRepository loanRepository;
+    private LoanInstallmentRepository loanInstallmentRepository;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CreditModuleApplication.class)
+                .properties("server.port=0", "spring.datasource.url=jdbc:h2:mem:jmh", "logging.level.root=WARN")
+                .run();
+        loanService = context.getBean(LoanService.class);
+
+        loanRepository = context.getBean(LoanRepository.class);
+        loanInstallmentRepository = context.getBean(LoanInstallmentRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        customerId = context.getBean(CustomerService.class)
+                .createCustomer(new CreateCustomerRequestDto("jmh", "customer", 1_000_000_000_000.0, 0.0))
+                .getId();
+        for (int i = 0; i < numberOfLoans; i++) {
+            CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+            request.setCustomerId(customerId);
+            request.setLoanAmount(1000.0);
+            request.setNumberOfInstallment(24);
+            request.setInterestRate(0.2);
+            loanId = loanService.createLoan(request).getId();
+        }
+
+        listLoansRequest = new ListLoansRequestDTO();
+        listLoansRequest.setCustomerId(customerId);
+        listLoansRequest.setPageSize(numberOfLoans);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LoanPageResponseDTO listLoans() {
+        return loanService.listLoans(listLoansRequest);
+    }
+
+    @Benchmark
+    public List<LoanInstallmentResponseDTO> listInstallments() {
+        return loanService.listInstallments(loanId);
+    }
+
+    @Benchmark
+    public List<LoanResponseDTO> listLoansAsEntities() {
+        return readOnlyTransaction.execute(status -> loanRepository
+                .findByCustomerId(customerId)
+                .stream()
+                .map(loan -> new LoanResponseDTO(loan.getId(), Money.toMajor(loan.getLoanAmount()),
+                        loan.getNumberOfInstallment(), loan.getCreateDate(), loan.getIsPaid()))
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<LoanInstallmentResponseDTO> listInstallmentsAsEntities() {
+        return readOnlyTransaction.execute(status -> loanInstallmentRepository.findByLoanId(loanId)
+                .stream()
+                .map(installment -> new LoanInstallmentResponseDTO(installment.getId(),
+                        Money.toMajor(installment.getAmount()), Money.toMajor(installment.getPaidAmount()),
+                        installment.getDueDate(), installment.getPaymentDate(), installment.getIsPaid()))
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
+import com.example.creditmodule.entity.Customer;
+import com.example.creditmodule.entity.Loan;
+import com.example.creditmodule.entity.LoanInstallment;
+import com.example.creditmodule.metrics.LoanMetrics;
+import com.example.creditmodule.repository.CustomerRepository;
+import com.example.creditmodule.repository.LoanInstallmentRepository;
+import com.example.creditmodule.repository.LoanRepository;
+import com.example.creditmodule.service.PortfolioService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service hot paths without a database: schedule generation and the discount/penalty loop of
+ * {@code payLoan}. The list endpoints read DTOs straight from their queries, see
+ * {@link LoanServiceH2Benchmark}. Mocks are stub-only so they do not record invocations while
+ * the benchmark runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoanServiceMockedBenchmark {
+
+    @Param({"6", "24"})
+    public int numberOfInstallment;
+
+    @Mock(stubOnly = true)
+    private CustomerRepository customerRepository;
+
+    @Mock(stubOnly = true)
+    private LoanRepository loanRepository;
+
+    @Mock(stubOnly = true)
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Mock(stubOnly = true)
+    private LoanMetrics loanMetrics;
+
+    @Mock(stubOnly = true)
+    private PortfolioService portfolioService;
+
+    @InjectMocks
+    private LoanServiceImpl loanService;
+
+    private AutoCloseable mocks;
+    private Loan loan;
+    private PayLoanRequest payLoanRequest;
+
+    @Setup
+    public void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+
+        Customer customer = new Customer();
+        customer.setId(1L);
+        loan = new Loan(1L, 1_000_000L, numberOfInstallment, LocalDate.now(), false, 0L, customer);
+
+        Mockito.when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(loan));
+        //payLoan marks installments as paid, every call gets unpaid copies
+        Mockito.when(loanInstallmentRepository.findPayableInstallments(Mockito.eq(1L), Mockito.any(LocalDate.class)))
+                .thenAnswer(invocation -> payableInstallments());
+        Mockito.when(loanInstallmentRepository.countByLoanIdAndIsPaidFalse(1L)).thenReturn(1L);
+
+        //enough to settle every installment
+        payLoanRequest = new PayLoanRequest(1L, 1_000_000.0);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    //half of the schedule is overdue and half is paid early, so both penalty and discount are computed
+    private List<LoanInstallment> payableInstallments() {
+        List<LoanInstallment> installments = new ArrayList<>(numberOfInstallment);
+        LocalDate dueDate = LocalDate.now().minusMonths(numberOfInstallment / 2).withDayOfMonth(1);
+        for (int i = 0; i < numberOfInstallment; i++) {
+            installments.add(new LoanInstallment((long) i, 50_000L, 0L, dueDate, null, false, 0L, null, false, loan));
+            dueDate = dueDate.plusMonths(1);
+        }
+        return installments;
+    }
+
+    @Benchmark
+    public List<LoanInstallment> createInstallments() {
+        return loanService.createInstallments(loan, 50_000L * numberOfInstallment, numberOfInstallment);
+    }
+
+    @Benchmark
+    public LoanPaymentResponseDTO payLoan() {
+        return loanService.payLoan(payLoanRequest);
+    }
+}
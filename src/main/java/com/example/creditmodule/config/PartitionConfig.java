@@ -0,0 +1,87 @@
+package com.example.creditmodule.config;
+
+import com.example.creditmodule.partition.PartitionContext;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.partition.PartitionRoutingDataSource;
+import com.example.creditmodule.partition.PartitionedSequenceGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Customers, their loans and installments are split over the databases listed in {@code app.partition.urls},
+ * one connection pool and one Flyway-migrated schema per partition. Every partition has all tables: the
+ * portfolio buckets, idempotency records and job checkpoints of a partition belong to its customers. The
+ * application sees a single {@link PartitionRoutingDataSource}, callers pick the partition with
+ * {@link PartitionRouter}. Without {@code app.partition.urls} there is one partition on {@code spring.datasource.url}.
+ * <p>
+ * With several partitions nothing may use the routed data source unbound: the migrations run on the partition
+ * pools directly ({@code spring.flyway.enabled=false}) and Hibernate is bootstrapped in the default partition.
+ */
+@Configuration
+public class PartitionConfig {
+
+    @Bean
+    public PartitionRouter partitionRouter(@Value("${app.partition.urls:}") String urls, DataSourceProperties properties,
+                                           WorkerThreads workerThreads) {
+        return new PartitionRouter(partitionUrls(urls, properties).size(), workerThreads.factory("partition-scatter-"));
+    }
+
+    @Bean
+    public PartitionRoutingDataSource dataSource(@Value("${app.partition.urls:}") String urls,
+                                                 @Value("${spring.flyway.locations:classpath:db/migration}") String[] migrations,
+                                                 DataSourceProperties properties) {
+        List<String> partitionUrls = partitionUrls(urls, properties);
+        Map<Object, Object> partitions = new HashMap<>();
+        for (int partition = 0; partition < partitionUrls.size(); partition++) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(partitionUrls.get(partition))
+                    .build();
+            dataSource.setPoolName("partition-" + partition);
+            //migrated on the partition's own pool, Spring Boot's Flyway is disabled as it would use the routed one
+            Flyway.configure().dataSource(dataSource).locations(migrations).load().migrate();
+            partitions.put(partition, dataSource);
+        }
+        PartitionRoutingDataSource dataSource = new PartitionRoutingDataSource(partitionUrls.size());
+        dataSource.setTargetDataSources(partitions);
+        dataSource.setLenientFallback(false);
+        return dataSource;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer partitionCountCustomizer(PartitionRouter partitionRouter) {
+        return properties -> properties.put(PartitionedSequenceGenerator.PARTITION_COUNT, partitionRouter.partitionCount());
+    }
+
+    //Hibernate reads the metadata and validates the schema while the factory is built; every partition has the
+    //same migrated schema, so the build runs on the calling thread bound to the default partition
+    @Bean
+    public EntityManagerFactoryBuilderCustomizer partitionBootstrapCustomizer() {
+        return builder -> {
+            TaskExecutorAdapter bootstrapExecutor = new TaskExecutorAdapter(Runnable::run);
+            bootstrapExecutor.setTaskDecorator(task -> () -> PartitionContext.runIn(PartitionContext.DEFAULT_PARTITION, task));
+            builder.setBootstrapExecutor(bootstrapExecutor);
+        };
+    }
+
+    private static List<String> partitionUrls(String urls, DataSourceProperties properties) {
+        List<String> partitionUrls = Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        return partitionUrls.isEmpty() ? List.of(properties.determineUrl()) : partitionUrls;
+    }
+}
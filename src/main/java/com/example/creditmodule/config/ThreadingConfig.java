@@ -0,0 +1,16 @@
+package com.example.creditmodule.config;
+
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class ThreadingConfig {
+
+    //the same check Spring Boot makes for Tomcat and the async executor: the flag set and a Java 21 runtime
+    @Bean
+    public WorkerThreads workerThreads(Environment environment) {
+        return new WorkerThreads(Threading.VIRTUAL.isActive(environment));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.creditmodule.config;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads of the application's own worker pools: the payment queue workers, the penalty accrual workers and
+ * the partition scatter. With {@code spring.threads.virtual.enabled} on a Java 21 runtime they are virtual
+ * threads like Tomcat's request threads, otherwise platform threads. The pools keep their fixed sizes either
+ * way, the sizes bound how many connections the workers hold at once.
+ */
+public class WorkerThreads {
+
+    private final boolean virtual;
+
+    public WorkerThreads(boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public ThreadFactory factory(String threadNamePrefix) {
+        //VirtualThreadTaskExecutor only builds on Java 21, virtual is never set on an older runtime
+        return virtual ? new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory()
+                : new CustomizableThreadFactory(threadNamePrefix);
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.creditmodule.controller;
 
 import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.response.CustomerResponseDTO;
 import com.example.creditmodule.entity.Customer;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.partition.PartitionRouter;
 import com.example.creditmodule.service.CustomerService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,14 +22,25 @@ public class CustomerController {
     @Autowired
     CustomerService customerService;
 
+    @Autowired
+    PartitionRouter partitionRouter;
+
     @PostMapping("createCustomer")
     public ResponseEntity<?> createCustomer(@Valid @RequestBody CreateCustomerRequestDto createCustomerRequestDto, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(bindingResult.getFieldError().getDefaultMessage());
         }
         try {
-            Customer customer = customerService.createCustomer(createCustomerRequestDto);
-            return ResponseEntity.status(HttpStatus.OK).body(customer);
+            //new customers are spread over the partitions, their loans follow them
+            Customer customer = partitionRouter.callIn(partitionRouter.nextPartition(),
+                    () -> customerService.createCustomer(createCustomerRequestDto));
+            //limits are stored in minor units, the API shows them in major units
+            return ResponseEntity.status(HttpStatus.OK).body(new CustomerResponseDTO(
+                    customer.getId(),
+                    customer.getName(),
+                    customer.getSurname(),
+                    Money.toMajor(customer.getCreditLimit()),
+                    Money.toMajor(customer.getUsedCreditLimit())));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
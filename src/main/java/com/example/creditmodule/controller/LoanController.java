@@ -1,22 +1,44 @@
 package com.example.creditmodule.controller;
 
+import com.example.creditmodule.config.MessageConverterConfig;
 import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.dto.request.CreateLoansRequestDTO;
 import com.example.creditmodule.dto.request.ListLoansRequestDTO;
 import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.request.PaymentQuoteRequestDTO;
+import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
 import com.example.creditmodule.dto.response.LoanInstallmentResponseDTO;
+import com.example.creditmodule.dto.response.LoanPageResponseDTO;
 import com.example.creditmodule.dto.response.LoanResponseDTO;
+import com.example.creditmodule.dto.response.PaymentTicketDTO;
 import com.example.creditmodule.entity.Loan;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.IdempotencyService;
 import com.example.creditmodule.service.LoanService;
+import com.example.creditmodule.service.PaymentQueueService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("api/loan/")
@@ -25,44 +47,177 @@ public class LoanController {
     @Autowired
     LoanService loanService;
 
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
+    @Autowired
+    PaymentQueueService paymentQueueService;
+
+    //customers, loans and installments live in the partition of their id, see PartitionRouter
+    @Autowired
+    PartitionRouter partitionRouter;
+
     @PostMapping("createLoan")
-    public ResponseEntity<?> createLoan(@Valid @RequestBody CreateLoanRequestDTO loanRequestDTO, BindingResult bindingResult) {
+    public ResponseEntity<?> createLoan(@Valid @RequestBody CreateLoanRequestDTO loanRequestDTO, BindingResult bindingResult,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(bindingResult.getFieldError().getDefaultMessage());
         }
         try {
-            Loan loan = loanService.createLoan(loanRequestDTO);
+            //a retry with the same key gets the loan created by the first call, the key is stored with the loan
+            LoanResponseDTO loan = partitionRouter.callInPartitionOf(loanRequestDTO.getCustomerId(),
+                    () -> idempotencyService.execute("createLoan", idempotencyKey, loanRequestDTO,
+                            LoanResponseDTO.class, () -> toResponse(loanService.createLoan(loanRequestDTO))));
             return ResponseEntity.status(HttpStatus.CREATED).body(loan);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid request: " + e.getMessage());
         }
     }
 
-    @PostMapping("listLoans")
-    public ResponseEntity<?> listLoans(@Valid @RequestBody ListLoansRequestDTO listLoansRequestDTO,BindingResult bindingResult) {
+    @PostMapping("createLoans")
+    public ResponseEntity<?> createLoans(@Valid @RequestBody CreateLoansRequestDTO createLoansRequestDTO, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(bindingResult.getFieldError().getDefaultMessage());
         }
-        List<LoanResponseDTO> loans = loanService.listLoans(listLoansRequestDTO);
-        return ResponseEntity.ok(loans);
+        //items are validated one by one, failures are reported per item in the response
+        return ResponseEntity.ok(loanService.createLoans(createLoansRequestDTO.getLoans()));
     }
 
-    @GetMapping("listInstallments")
-    public ResponseEntity<List<LoanInstallmentResponseDTO>> listInstallments(@NotNull @RequestParam("loanId") Long loanId) {
-        List<LoanInstallmentResponseDTO> loanInstallments = loanService.listInstallments(loanId);
-        return ResponseEntity.ok(loanInstallments);
+    //JSON by default, Smile or CBOR when the client asks for it in the Accept header
+    @PostMapping(value = "listLoans", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MessageConverterConfig.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<?> listLoans(@Valid @RequestBody ListLoansRequestDTO listLoansRequestDTO,BindingResult bindingResult,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(bindingResult.getFieldError().getDefaultMessage());
+        }
+        //the version is read before the page, a payment in between leaves a stale tag and costs one more read
+        Long customerId = listLoansRequestDTO.getCustomerId();
+        Long version = partitionRouter.callInPartitionOf(customerId, () -> loanService.loanBookVersion(customerId));
+        //pages and filters of the same customer are different responses, so they are part of the tag
+        String eTag = version == null ? null : eTag(customerId, version,
+                listLoansRequestDTO.getNumberOfInstallment(), listLoansRequestDTO.getIsPaid(),
+                listLoansRequestDTO.getAfterId(), listLoansRequestDTO.getPageSize());
+        if (notModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        LoanPageResponseDTO loans = partitionRouter.callInPartitionOf(customerId, () -> loanService.listLoans(listLoansRequestDTO));
+        return withETag(eTag).body(loans);
+    }
+
+    @GetMapping(value = "listInstallments", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MessageConverterConfig.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<LoanInstallmentResponseDTO>> listInstallments(@NotNull @RequestParam("loanId") Long loanId,
+                                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        //an unchanged loan is answered from its version, without the installment query and serialization
+        Long version = partitionRouter.callInPartitionOf(loanId, () -> loanService.installmentsVersion(loanId));
+        String eTag = version == null ? null : eTag(loanId, version);
+        if (notModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        List<LoanInstallmentResponseDTO> loanInstallments = partitionRouter.callInPartitionOf(loanId,
+                () -> loanService.listInstallments(loanId));
+        return withETag(eTag).body(loanInstallments);
+    }
+
+    @GetMapping("exportLoans")
+    public ResponseEntity<StreamingResponseBody> exportLoans(@NotNull @RequestParam("customerId") Long customerId) {
+        //checked before streaming starts, so a missing customer still gets a normal error response
+        if (!partitionRouter.callInPartitionOf(customerId, () -> customerService.customerExists(customerId))) {
+            throw new CreditModuleException(ErrorMessage.CUSTOMER_NOT_FOUND);
+        }
+        //one JSON document per loan and line, written while the loans are read on the async thread
+        StreamingResponseBody body = outputStream -> partitionRouter.runInPartitionOf(customerId,
+                () -> loanService.exportLoans(customerId, loan -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(loan));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping("payLoan")
-    public ResponseEntity<?> payLoan(@Valid @RequestBody PayLoanRequest payLoanRequest,BindingResult bindingResult) {
+    public ResponseEntity<?> payLoan(@Valid @RequestBody PayLoanRequest payLoanRequest,BindingResult bindingResult,
+                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(bindingResult.getFieldError().getDefaultMessage());
         }
         try {
-            return ResponseEntity.ok(loanService.payLoan(payLoanRequest));
+            //a retry with the same key gets the result of the first payment instead of paying again
+            return ResponseEntity.ok(partitionRouter.callInPartitionOf(payLoanRequest.getLoanId(),
+                    () -> idempotencyService.execute("payLoan", idempotencyKey, payLoanRequest,
+                            LoanPaymentResponseDTO.class, () -> loanService.payLoan(payLoanRequest))));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
     }
 
+    //what payLoan would settle for the amount and date, without changing anything
+    @PostMapping("quotePayment")
+    public ResponseEntity<?> quotePayment(@Valid @RequestBody PaymentQuoteRequestDTO paymentQuoteRequestDTO, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(bindingResult.getFieldError().getDefaultMessage());
+        }
+        return ResponseEntity.ok(partitionRouter.callInPartitionOf(paymentQuoteRequestDTO.getLoanId(),
+                () -> loanService.quotePayment(paymentQuoteRequestDTO)));
+    }
+
+    @PostMapping("submitPayment")
+    public ResponseEntity<?> submitPayment(@Valid @RequestBody PayLoanRequest payLoanRequest, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(bindingResult.getFieldError().getDefaultMessage());
+        }
+        //paid later by the payment queue, the ticket is polled with paymentStatus
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(paymentQueueService.submit(payLoanRequest));
+    }
+
+    @GetMapping("paymentStatus")
+    public ResponseEntity<PaymentTicketDTO> paymentStatus(@NotNull @RequestParam("ticketId") String ticketId) {
+        return ResponseEntity.ok(paymentQueueService.getTicket(ticketId));
+    }
+
+    //weak, so gzipped and Smile/CBOR encodings of the same version share it and Tomcat still compresses the response
+    private static String eTag(Object... parts) {
+        return "W/\"" + Arrays.stream(parts).map(part -> Objects.toString(part, "")).collect(Collectors.joining(".")) + "\"";
+    }
+
+    //If-None-Match uses the weak comparison, any listed tag or "*" means the client has the current version
+    private static boolean notModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String opaqueTag = eTag.substring(2);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(String eTag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        return eTag == null ? builder : builder.eTag(eTag);
+    }
+
+    //the amount is stored in minor units, the API shows it in major units
+    private static LoanResponseDTO toResponse(Loan loan) {
+        return new LoanResponseDTO(
+                loan.getId(),
+                Money.toMajor(loan.getLoanAmount()),
+                loan.getNumberOfInstallment(),
+                loan.getCreateDate(),
+                loan.getIsPaid());
+    }
+
 }
@@ -0,0 +1,28 @@
+package com.example.creditmodule.controller;
+
+import com.example.creditmodule.dto.response.PaymentImportResultDTO;
+import com.example.creditmodule.enums.PaymentFileFormat;
+import com.example.creditmodule.service.PaymentImportService;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@Controller
+@RequestMapping("api/import/")
+public class PaymentImportController {
+
+    @Autowired
+    PaymentImportService paymentImportService;
+
+    //fileName is resolved in app.payment.import.directory, the file is imported before the call returns
+    @PostMapping("payments")
+    public ResponseEntity<PaymentImportResultDTO> importPayments(
+            @NotNull @RequestParam("fileName") String fileName,
+            @RequestParam(value = "format", defaultValue = "CSV") PaymentFileFormat format) {
+        return ResponseEntity.ok(paymentImportService.importFile(fileName, format));
+    }
+}
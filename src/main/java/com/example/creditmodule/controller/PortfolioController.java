@@ -0,0 +1,31 @@
+package com.example.creditmodule.controller;
+
+import com.example.creditmodule.dto.response.PortfolioRebuildResultDTO;
+import com.example.creditmodule.dto.response.PortfolioSummaryDTO;
+import com.example.creditmodule.service.PortfolioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@Controller
+@RequestMapping("api/portfolio/")
+public class PortfolioController {
+
+    @Autowired
+    PortfolioService portfolioService;
+
+    //without customerId the summary covers the whole portfolio
+    @GetMapping("summary")
+    public ResponseEntity<PortfolioSummaryDTO> getSummary(@RequestParam(value = "customerId", required = false) Long customerId) {
+        return ResponseEntity.ok(portfolioService.getSummary(customerId));
+    }
+
+    @PostMapping("rebuild")
+    public ResponseEntity<PortfolioRebuildResultDTO> rebuild() {
+        return ResponseEntity.ok(portfolioService.rebuild());
+    }
+}
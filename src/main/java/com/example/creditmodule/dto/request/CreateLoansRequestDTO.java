@@ -0,0 +1,12 @@
+package com.example.creditmodule.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CreateLoansRequestDTO {
+    @NotEmpty(message = "Loans cannot be empty.")
+    private List<CreateLoanRequestDTO> loans;
+}
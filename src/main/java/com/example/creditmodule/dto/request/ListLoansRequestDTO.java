@@ -1,6 +1,8 @@
 package com.example.creditmodule.dto.request;
 
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -11,4 +13,9 @@ public class ListLoansRequestDTO {
     private Long customerId;
     private Integer numberOfInstallment;
     private Boolean isPaid;
-    }
\ No newline at end of file
+    //nextAfterId of the previous page, empty for the first page
+    private Long afterId;
+    @Min(value = 1, message = "Page size must be at least 1.")
+    @Max(value = 1000, message = "Page size must be at most 1000.")
+    private Integer pageSize;
+    }
@@ -0,0 +1,24 @@
+package com.example.creditmodule.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentQuoteRequestDTO {
+    @NotNull(message = "Loan ID cannot be null.")
+    private Long loanId;
+
+    //empty quotes the amount that settles every payable installment
+    @Positive(message = "Payment amount must be greater than 0.")
+    private Double paymentAmount;
+
+    //empty quotes a payment made today
+    private LocalDate paymentDate;
+}
@@ -0,0 +1,13 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkLoanItemResultDTO {
+    private Integer index; //position of the item in the request
+    private Long loanId;
+    private Integer errorCode;
+    private String errorMessage;
+}
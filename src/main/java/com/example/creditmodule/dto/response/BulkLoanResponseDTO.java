@@ -0,0 +1,15 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BulkLoanResponseDTO {
+    private Integer totalCount;
+    private Integer createdCount;
+    private Integer failedCount;
+    private List<BulkLoanItemResultDTO> results;
+}
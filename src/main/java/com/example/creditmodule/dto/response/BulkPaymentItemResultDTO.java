@@ -0,0 +1,13 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkPaymentItemResultDTO {
+    private Integer index; //position of the payment in the request
+    private LoanPaymentResponseDTO payment;
+    private Integer errorCode;
+    private String errorMessage;
+}
@@ -0,0 +1,16 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class CustomerResponseDTO {
+    private Long id;
+    private String name;
+    private String surname;
+    private Double creditLimit;
+    private Double usedCreditLimit;
+}
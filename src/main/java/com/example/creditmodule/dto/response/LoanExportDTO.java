@@ -0,0 +1,20 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class LoanExportDTO {
+    private Long id;
+    private Double loanAmount;
+    private Integer numberOfInstallment;
+    private LocalDate createDate;
+    private Boolean isPaid;
+    private List<LoanInstallmentResponseDTO> installments;
+}
@@ -1,5 +1,6 @@
 package com.example.creditmodule.dto.response;
 
+import com.example.creditmodule.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -18,4 +19,9 @@ public class LoanInstallmentResponseDTO {
     private LocalDate paymentDate;
     private Boolean isPaid;
 
+    //used by the projection query of LoanInstallmentRepository, amounts come in minor units
+    public LoanInstallmentResponseDTO(Long id, long amount, long paidAmount, LocalDate dueDate, LocalDate paymentDate,
+                                      Boolean isPaid) {
+        this(id, Money.toMajor(amount), Money.toMajor(paidAmount), dueDate, paymentDate, isPaid);
+    }
 }
\ No newline at end of file
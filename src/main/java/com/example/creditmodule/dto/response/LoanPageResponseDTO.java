@@ -0,0 +1,15 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class LoanPageResponseDTO {
+    private List<LoanResponseDTO> loans;
+    private Long nextAfterId; //null when there are no more loans
+}
@@ -2,11 +2,13 @@ package com.example.creditmodule.dto.response;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class LoanPaymentResponseDTO {
     private Long loanId;
     private Double loanAmount;
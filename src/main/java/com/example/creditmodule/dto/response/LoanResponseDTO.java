@@ -1,7 +1,9 @@
 package com.example.creditmodule.dto.response;
 
+import com.example.creditmodule.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
@@ -9,10 +11,16 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @AllArgsConstructor
+@NoArgsConstructor
 public class LoanResponseDTO {
     private Long id;
     private Double loanAmount;
     private Integer numberOfInstallment;
     private LocalDate createDate;
     private Boolean isPaid;
+
+    //used by the projection query of LoanRepository, the amount comes in minor units
+    public LoanResponseDTO(Long id, long loanAmount, Integer numberOfInstallment, LocalDate createDate, Boolean isPaid) {
+        this(id, Money.toMajor(loanAmount), numberOfInstallment, createDate, isPaid);
+    }
 }
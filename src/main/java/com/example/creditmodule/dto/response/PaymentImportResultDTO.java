@@ -0,0 +1,16 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PaymentImportResultDTO {
+    private String fileName;
+    private String resultFileName; //one line per row of the file, in the result directory
+    private Long totalRows;
+    private Long paidRows;
+    private Long rejectedRows;
+    private Long durationMillis;
+    private Long rowsPerSecond;
+}
@@ -0,0 +1,18 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentQuoteInstallmentDTO {
+    private Long id;
+    private LocalDate dueDate;
+    private Double amount;
+    private Double adjustment; //negative for a discount, positive for a penalty
+    private Double paymentAmount;
+}
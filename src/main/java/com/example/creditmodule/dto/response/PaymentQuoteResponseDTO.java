@@ -0,0 +1,21 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentQuoteResponseDTO {
+    private Long loanId;
+    private LocalDate paymentDate;
+    private Double paymentAmount;
+    private Double payoffAmount; //settles every installment payable on the payment date
+    private List<PaymentQuoteInstallmentDTO> settledInstallments;
+    private Long unpaidInstallments; //left after the payment
+    private Double remainingAmount; //extra amount
+}
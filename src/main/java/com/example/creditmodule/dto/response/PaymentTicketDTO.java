@@ -0,0 +1,20 @@
+package com.example.creditmodule.dto.response;
+
+import com.example.creditmodule.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class PaymentTicketDTO {
+    private String ticketId;
+    private PaymentStatus status;
+    private Long loanId;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private LoanPaymentResponseDTO payment; //set when the payment is completed
+    private Integer errorCode; //set when the payment failed
+    private String errorMessage;
+}
@@ -0,0 +1,12 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PortfolioRebuildResultDTO {
+    private Integer customersChecked;
+    private Integer bucketsChecked;
+    private Integer bucketsRepaired; //0 when the maintained summary was correct
+}
@@ -0,0 +1,19 @@
+package com.example.creditmodule.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class PortfolioSummaryDTO {
+    private Long customerId; //null for the whole portfolio
+    private Double outstandingAmount;
+    private Double overdueAmount; //due before today
+    private Double dueThisMonthAmount; //due in the calendar month of today, including overdue ones
+    private Long unpaidInstallments;
+    private LocalDate date;
+}
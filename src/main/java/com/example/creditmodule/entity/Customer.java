@@ -1,21 +1,28 @@
 package com.example.creditmodule.entity;
 
+import com.example.creditmodule.config.EntityCacheConfig;
+import com.example.creditmodule.partition.PartitionedSequence;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @Entity
+//credit limit updates evict the customer, see CustomerRepositoryCustomImpl
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.CUSTOMER_REGION)
 public class Customer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PartitionedSequence(name = "customer_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String surname;
-    private Double creditLimit;
-    private Double usedCreditLimit;
+    //amounts in minor units, see Money
+    private long creditLimit;
+    private long usedCreditLimit;
+    //bumped whenever a loan is created or fully paid, the ETag of listLoans
+    private long loanBookVersion;
 
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.creditmodule.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_idempotency_record_created_at", columnList = "createdAt"))
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(length = 300)
+    private String idempotencyKey; //operation and the key sent by the client
+    @Column(length = 64, nullable = false)
+    private String requestHash;
+    @Column(length = 4000, nullable = false)
+    private String response; //JSON of the response DTO
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    //records are only inserted, so save() persists and a concurrent insert of the same key fails instead of merging
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
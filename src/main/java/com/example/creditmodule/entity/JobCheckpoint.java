@@ -0,0 +1,30 @@
+package com.example.creditmodule.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a batch job run, saved after every chunk so a crashed run resumes after the last
+ * finished chunk instead of starting over.
+ */
+@Data
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    private String jobName;
+    private LocalDate runDate;
+    private long lastId; //highest id of the last finished chunk
+    private long processedCount;
+    private Boolean completed;
+    private LocalDateTime updatedAt;
+
+}
@@ -1,27 +1,41 @@
 package com.example.creditmodule.entity;
 
+import com.example.creditmodule.config.EntityCacheConfig;
+import com.example.creditmodule.partition.PartitionedSequence;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = @Index(name = "idx_loan_customer_id", columnList = "customerId, id"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.LOAN_REGION)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    //created in the partition of the customer, see PartitionRouter
+    @PartitionedSequence(name = "loan_seq", allocationSize = 50)
     private Long id;
-    private Double loanAmount;
+    private long loanAmount; //minor units, see Money
     private Integer numberOfInstallment;
     private LocalDate createDate;
     private Boolean isPaid;
-    @ManyToOne
+    //bumped whenever installments are paid, the ETag of listInstallments
+    private long installmentsVersion;
+    //lazy: payLoan only needs the customer id, which the proxy has without a query
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customerId")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Customer customer;
 
 }
@@ -1,27 +1,42 @@
 package com.example.creditmodule.entity;
 
+import com.example.creditmodule.partition.PartitionedSequence;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDate;
 
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_loan_installment_loan_paid_due", columnList = "loanId, isPaid, dueDate"),
+        @Index(name = "idx_loan_installment_paid_due", columnList = "isPaid, dueDate")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 public class LoanInstallment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PartitionedSequence(name = "loan_installment_seq", allocationSize = 50)
     private Long id;
-    private Double amount;
-    private Double paidAmount;
+    //amounts in minor units, see Money
+    private long amount;
+    private long paidAmount;
     private LocalDate dueDate;
     private LocalDate paymentDate;
     private Boolean isPaid;
-    @ManyToOne
+    //penalty of the overdue installment as of penaltyAccruedOn, kept up to date by the accrual job
+    private long accruedPenalty;
+    private LocalDate penaltyAccruedOn;
+    private Boolean isOverdue;
+    //lazy: queries that need the loan fetch it explicitly, see LoanInstallmentRepository
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "loanId")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Loan loan;
 
 
@@ -0,0 +1,34 @@
+package com.example.creditmodule.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Unpaid installments of a customer that fall due on the same date. Kept up to date by createLoan and
+ * payLoan in their own transaction, so the portfolio summary never has to read the installments. The
+ * same deltas are added to one stripe of the {@code portfolio_total} rows, which hold the whole portfolio.
+ */
+@Data
+@Entity
+@IdClass(PortfolioBucketId.class)
+@AllArgsConstructor
+@NoArgsConstructor
+public class PortfolioBucket {
+
+    //customer id of the portfolio totals returned by PortfolioBucketRepository.sumTotals, never stored as a bucket
+    public static final Long ALL_CUSTOMERS = 0L;
+
+    @Id
+    private Long customerId;
+    @Id
+    private LocalDate dueDate;
+    private long unpaidAmount; //minor units, see Money
+    private long unpaidCount;
+
+}
@@ -0,0 +1,16 @@
+package com.example.creditmodule.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PortfolioBucketId implements Serializable {
+    private Long customerId;
+    private LocalDate dueDate;
+}
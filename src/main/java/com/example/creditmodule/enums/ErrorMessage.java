@@ -11,7 +11,17 @@ public enum ErrorMessage {
     INSTALLMENT_NOT_FOUND(1005, "Installment not found for given loanId."),
     LOAN_ALREADY_PAID(1006, "Loan with given ID already paid."),
     INVALID_PAYMENT_AMOUNT(1007, "Payment amount cannot be less than loan amount."),
-    NO_PAYABLE_INSTALLMENTS(1008, "There are no payable installments.");
+    NO_PAYABLE_INSTALLMENTS(1008, "There are no payable installments."),
+    INVALID_LOAN_REQUEST(1009, "Loan request has missing or invalid fields."),
+    LOAN_CHUNK_FAILED(1010, "Loan could not be persisted, its chunk was rolled back."),
+    IDEMPOTENCY_KEY_REUSED(1011, "Idempotency key was already used for a different request."),
+    IDEMPOTENT_REQUEST_IN_PROGRESS(1012, "A request with the same idempotency key is still in progress."),
+    INVALID_IDEMPOTENCY_KEY(1013, "Idempotency key must have between 1 and 255 characters."),
+    PAYMENT_QUEUE_FULL(1014, "Payment queue is full, please retry later."),
+    PAYMENT_TICKET_NOT_FOUND(1015, "Payment ticket not found or expired."),
+    INVALID_PAYMENT_ROW(1016, "Payment row could not be parsed."),
+    PAYMENT_CHUNK_FAILED(1017, "Payment could not be persisted, its chunk was rolled back."),
+    IMPORT_FILE_NOT_FOUND(1018, "Import file not found in the import directory.");
 
     private final Integer errorCode;
     private final String message;
@@ -0,0 +1,8 @@
+package com.example.creditmodule.enums;
+
+public enum PaymentFileFormat {
+    //loanId,paymentAmount with the amount in major units ("250.50"), an optional header line and extra columns are ignored
+    CSV,
+    //loanId in columns 1-19 and the amount in minor units in columns 20-34, both right aligned and zero or space padded
+    FIXED_WIDTH
+}
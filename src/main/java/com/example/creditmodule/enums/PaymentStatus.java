@@ -0,0 +1,7 @@
+package com.example.creditmodule.enums;
+
+public enum PaymentStatus {
+    QUEUED,
+    COMPLETED,
+    FAILED
+}
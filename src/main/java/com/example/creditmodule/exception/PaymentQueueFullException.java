@@ -0,0 +1,11 @@
+package com.example.creditmodule.exception;
+
+import com.example.creditmodule.enums.ErrorMessage;
+
+//answered with 429 so clients back off and retry
+public class PaymentQueueFullException extends CreditModuleException {
+
+    public PaymentQueueFullException() {
+        super(ErrorMessage.PAYMENT_QUEUE_FULL);
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.creditmodule.handler;
 
 import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.exception.PaymentQueueFullException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -12,14 +16,27 @@ import java.util.Map;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @ExceptionHandler(CreditModuleException.class)
     public ResponseEntity<Map<String, Object>> handleCreditModuleException(CreditModuleException ex) {
+        meterRegistry.counter("creditmodule.errors", "code", String.valueOf(ex.getErrorCode())).increment();
         Map<String, Object> error = new HashMap<>();
         error.put("errorCode", ex.getErrorCode());
         error.put("errorMessage", ex.getErrorMessage());
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(PaymentQueueFullException.class)
+    public ResponseEntity<Map<String, Object>> handlePaymentQueueFullException(PaymentQueueFullException ex) {
+        meterRegistry.counter("creditmodule.errors", "code", String.valueOf(ex.getErrorCode())).increment();
+        Map<String, Object> error = new HashMap<>();
+        error.put("errorCode", ex.getErrorCode());
+        error.put("errorMessage", ex.getErrorMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGeneralException(Exception ex) {
         Map<String, Object> error = new HashMap<>();
@@ -0,0 +1,206 @@
+package com.example.creditmodule.importer;
+
+import com.example.creditmodule.enums.PaymentFileFormat;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads payment files through memory-mapped windows and parses every line in place: loan ids and
+ * amounts are read digit by digit from the mapped bytes, no String or byte[] is created for a line. A window ends at the last complete line, the next one is mapped from the start of the line
+ * that did not fit, so files larger than 2 GB are read in several mappings.
+ */
+public final class PaymentFileParser {
+
+    static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+    static final int FIXED_WIDTH_LOAN_ID_END = 19;
+    static final int FIXED_WIDTH_AMOUNT_END = 34;
+    //more digits could overflow a long
+    private static final int MAX_DIGITS = 18;
+
+    public interface RowHandler {
+        //amount in minor units, always positive
+        void row(long lineNumber, long loanId, long amount);
+
+        void reject(long lineNumber, String reason);
+    }
+
+    private PaymentFileParser() {
+    }
+
+    //returns the number of lines read, blank lines included
+    public static long parse(Path file, PaymentFileFormat format, RowHandler handler) throws IOException {
+        return parse(file, format, handler, DEFAULT_WINDOW_SIZE);
+    }
+
+    static long parse(Path file, PaymentFileFormat format, RowHandler handler, int windowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long lineNumber = 0;
+            while (position < size) {
+                int length = (int) Math.min(windowSize, size - position);
+                boolean lastWindow = position + length == size;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(i) == '\n') {
+                        parseLine(buffer, lineStart, i, ++lineNumber, format, handler);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastWindow) {
+                    if (lineStart < length) {
+                        parseLine(buffer, lineStart, length, ++lineNumber, format, handler);
+                    }
+                    position = size;
+                } else if (lineStart == 0) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than " + windowSize + " bytes");
+                } else {
+                    position += lineStart;
+                }
+            }
+            return lineNumber;
+        }
+    }
+
+    private static void parseLine(MappedByteBuffer buffer, int start, int end, long lineNumber,
+                                  PaymentFileFormat format, RowHandler handler) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (isBlank(buffer, start, end)) {
+            return;
+        }
+        if (format == PaymentFileFormat.CSV) {
+            parseCsvLine(buffer, start, end, lineNumber, handler);
+        } else {
+            parseFixedWidthLine(buffer, start, end, lineNumber, handler);
+        }
+    }
+
+    private static void parseCsvLine(MappedByteBuffer buffer, int start, int end, long lineNumber, RowHandler handler) {
+        int firstComma = indexOf(buffer, start, end, (byte) ',');
+        if (firstComma < 0) {
+            handler.reject(lineNumber, "Expected loanId,paymentAmount");
+            return;
+        }
+        //a header line is recognized by its first column starting with a letter or a quote
+        if (lineNumber == 1 && isHeaderStart(buffer.get(skipSpaces(buffer, start, firstComma)))) {
+            return;
+        }
+        int amountEnd = indexOf(buffer, firstComma + 1, end, (byte) ',');
+        long loanId = parseDigits(buffer, start, firstComma);
+        long amount = parseDecimal(buffer, firstComma + 1, amountEnd < 0 ? end : amountEnd);
+        accept(lineNumber, loanId, amount, handler);
+    }
+
+    private static void parseFixedWidthLine(MappedByteBuffer buffer, int start, int end, long lineNumber,
+                                            RowHandler handler) {
+        if (end - start < FIXED_WIDTH_AMOUNT_END) {
+            handler.reject(lineNumber, "Line is shorter than " + FIXED_WIDTH_AMOUNT_END + " characters");
+            return;
+        }
+        long loanId = parseDigits(buffer, start, start + FIXED_WIDTH_LOAN_ID_END);
+        long amount = parseDigits(buffer, start + FIXED_WIDTH_LOAN_ID_END, start + FIXED_WIDTH_AMOUNT_END);
+        accept(lineNumber, loanId, amount, handler);
+    }
+
+    private static void accept(long lineNumber, long loanId, long amount, RowHandler handler) {
+        if (loanId < 0) {
+            handler.reject(lineNumber, "Invalid loan id");
+        } else if (amount <= 0) {
+            handler.reject(lineNumber, "Invalid payment amount");
+        } else {
+            handler.row(lineNumber, loanId, amount);
+        }
+    }
+
+    //non-negative integer with optional surrounding spaces, -1 if the field is not one
+    private static long parseDigits(MappedByteBuffer buffer, int start, int end) {
+        start = skipSpaces(buffer, start, end);
+        end = trimSpaces(buffer, start, end);
+        if (start == end || end - start > MAX_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (!isDigit(b)) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    //decimal in major units with at most two fraction digits, returned in minor units, -1 if invalid
+    private static long parseDecimal(MappedByteBuffer buffer, int start, int end) {
+        start = skipSpaces(buffer, start, end);
+        end = trimSpaces(buffer, start, end);
+        int dot = indexOf(buffer, start, end, (byte) '.');
+        int integerEnd = dot < 0 ? end : dot;
+        if (integerEnd - start > MAX_DIGITS - 2 || (dot >= 0 && (end - dot - 1 > 2 || end - dot - 1 < 1))) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < integerEnd; i++) {
+            byte b = buffer.get(i);
+            if (!isDigit(b)) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        int fractionDigits = 0;
+        for (int i = dot + 1; dot >= 0 && i < end; i++) {
+            byte b = buffer.get(i);
+            if (!isDigit(b)) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+            fractionDigits++;
+        }
+        for (; fractionDigits < 2; fractionDigits++) {
+            value *= 10;
+        }
+        return start == integerEnd && dot < 0 ? -1 : value;
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, int start, int end, byte value) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(MappedByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimSpaces(MappedByteBuffer buffer, int start, int end) {
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isBlank(MappedByteBuffer buffer, int start, int end) {
+        return skipSpaces(buffer, start, end) == end;
+    }
+
+    private static boolean isHeaderStart(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '"';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
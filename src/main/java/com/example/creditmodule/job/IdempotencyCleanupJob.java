@@ -0,0 +1,25 @@
+package com.example.creditmodule.job;
+
+import com.example.creditmodule.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes idempotency records older than {@code app.idempotency.record-ttl}. Expired records are
+ * already ignored on lookup, the job only keeps the table small.
+ */
+@Slf4j
+@Component
+public class IdempotencyCleanupJob {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Scheduled(cron = "${app.idempotency.cleanup.cron:-}")
+    public void deleteExpired() {
+        int deleted = idempotencyService.deleteExpired();
+        log.info("Deleted {} expired idempotency records", deleted);
+    }
+}
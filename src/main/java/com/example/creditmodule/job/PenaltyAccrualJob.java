@@ -0,0 +1,165 @@
+package com.example.creditmodule.job;
+
+import com.example.creditmodule.config.WorkerThreads;
+import com.example.creditmodule.entity.JobCheckpoint;
+import com.example.creditmodule.metrics.PenaltyAccrualMetrics;
+import com.example.creditmodule.money.InstallmentCalculator;
+import com.example.creditmodule.partition.PartitionContext;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.repository.JobCheckpointRepository;
+import com.example.creditmodule.repository.LoanInstallmentRepository;
+import com.example.creditmodule.repository.LoanInstallmentRepositoryCustom.OverdueInstallment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the penalty that payLoan would charge today onto every unpaid overdue installment. Installments
+ * are read in chunks ordered by id, every chunk is split across {@code app.penalty.accrual.workers}
+ * threads that update their part in one JDBC batch and transaction. The checkpoint is saved after
+ * every chunk; a run of the same day resumes after it. Rows accrued for the day are skipped, so
+ * redoing a chunk after a crash does no harm. Every partition is accrued with its own workers and checkpoint.
+ */
+@Slf4j
+@Component
+public class PenaltyAccrualJob {
+
+    static final String JOB_NAME = "penalty-accrual";
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PenaltyAccrualMetrics penaltyAccrualMetrics;
+
+    @Autowired
+    private PartitionRouter partitionRouter;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.penalty.accrual.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${app.penalty.accrual.workers:4}")
+    private int workers;
+
+    //one run at a time in this instance
+    private final ReentrantLock running = new ReentrantLock();
+
+    @Scheduled(cron = "${app.penalty.accrual.cron:-}")
+    public void scheduledRun() {
+        run(LocalDate.now());
+    }
+
+    public void run(LocalDate asOf) {
+        if (!running.tryLock()) {
+            log.info("Penalty accrual is already running, skipped run as of {}", asOf);
+            return;
+        }
+        try {
+            //every partition has its own installments and checkpoint and is accrued at the same time
+            partitionRouter.scatter(partition -> {
+                accrue(partition, asOf);
+                return null;
+            });
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private void accrue(int partition, LocalDate asOf) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME).orElse(null);
+        if (checkpoint != null && asOf.equals(checkpoint.getRunDate())) {
+            if (checkpoint.getCompleted()) {
+                log.info("Penalty accrual of partition {} as of {} is already done", partition, asOf);
+                return;
+            }
+            log.info("Penalty accrual of partition {} as of {} resumes after installment {}",
+                    partition, asOf, checkpoint.getLastId());
+        } else {
+            checkpoint = new JobCheckpoint(JOB_NAME, asOf, 0, 0, false, LocalDateTime.now());
+        }
+
+        int workerCount = Math.max(1, workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount,
+                workerThreads.factory("penalty-accrual-" + partition + "-"));
+        try {
+            List<OverdueInstallment> chunk = loanInstallmentRepository.findOverdueChunk(asOf, checkpoint.getLastId(), Math.max(1, chunkSize));
+            while (!chunk.isEmpty()) {
+                long start = System.nanoTime();
+                int updated = accrueChunk(executor, chunk, workerCount, partition, asOf);
+                penaltyAccrualMetrics.chunkProcessed(updated, System.nanoTime() - start);
+
+                checkpoint.setLastId(chunk.get(chunk.size() - 1).id());
+                checkpoint.setProcessedCount(checkpoint.getProcessedCount() + updated);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                jobCheckpointRepository.save(checkpoint);
+
+                chunk = loanInstallmentRepository.findOverdueChunk(asOf, checkpoint.getLastId(), Math.max(1, chunkSize));
+            }
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            jobCheckpointRepository.save(checkpoint);
+            log.info("Penalty accrual of partition {} as of {} done, {} installments",
+                    partition, asOf, checkpoint.getProcessedCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //every worker gets a consecutive id range, so its batch locks rows in id order like payLoan does
+    private int accrueChunk(ExecutorService executor, List<OverdueInstallment> chunk, int workerCount, int partition,
+                            LocalDate asOf) {
+        int partSize = (chunk.size() + workerCount - 1) / workerCount;
+        List<Future<Integer>> futures = new ArrayList<>(workerCount);
+        for (int from = 0; from < chunk.size(); from += partSize) {
+            List<OverdueInstallment> part = chunk.subList(from, Math.min(from + partSize, chunk.size()));
+            //the workers write to the partition of the job, not to the default one
+            futures.add(executor.submit(() -> PartitionContext.callIn(partition, () -> transactionTemplate.execute(
+                    status -> loanInstallmentRepository.accruePenalties(part, penalties(part, asOf), asOf)))));
+        }
+
+        int updated = 0;
+        try {
+            for (Future<Integer> future : futures) {
+                updated += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Penalty accrual was interrupted", e);
+        } catch (ExecutionException e) {
+            //the checkpoint still points before this chunk, the next run redoes it
+            throw new IllegalStateException("Penalty accrual failed in the chunk starting at installment " + chunk.get(0).id(), e.getCause());
+        }
+        return updated;
+    }
+
+    private static long[] penalties(List<OverdueInstallment> installments, LocalDate asOf) {
+        long[] penalties = new long[installments.size()];
+        for (int i = 0; i < penalties.length; i++) {
+            OverdueInstallment installment = installments.get(i);
+            penalties[i] = InstallmentCalculator.adjustment(installment.amount(), installment.dueDate(), asOf);
+        }
+        return penalties;
+    }
+}
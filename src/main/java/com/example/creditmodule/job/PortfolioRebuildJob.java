@@ -0,0 +1,31 @@
+package com.example.creditmodule.job;
+
+import com.example.creditmodule.dto.response.PortfolioRebuildResultDTO;
+import com.example.creditmodule.service.PortfolioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the portfolio summary from the installments on {@code app.portfolio.rebuild.cron} and
+ * repairs buckets that drifted. The cron is "-" (disabled) by default, the job can also be started
+ * with {@code POST api/portfolio/rebuild}.
+ */
+@Slf4j
+@Component
+public class PortfolioRebuildJob {
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Scheduled(cron = "${app.portfolio.rebuild.cron:-}")
+    public void rebuild() {
+        PortfolioRebuildResultDTO result = portfolioService.rebuild();
+        if (result.getBucketsRepaired() > 0) {
+            log.warn("Portfolio summary repaired: {}", result);
+        } else {
+            log.info("Portfolio summary verified: {}", result);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.creditmodule.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Business counters of loan origination and payments. Amounts are counted in the loan currency.
+ * Inside a transaction the counters are incremented once it commits, so rolled back payments and
+ * loans are not counted.
+ */
+@Component
+public class LoanMetrics {
+
+    private final Counter installmentsPaid;
+    private final Counter discountAmount;
+    private final Counter penaltyAmount;
+    private final Counter creditReserved;
+    private final Counter creditReleased;
+
+    public LoanMetrics(MeterRegistry meterRegistry) {
+        installmentsPaid = Counter.builder("creditmodule.installments.paid")
+                .description("Installments settled by payments")
+                .register(meterRegistry);
+        discountAmount = Counter.builder("creditmodule.payments.adjustment")
+                .description("Early payment discounts given")
+                .tag("type", "discount")
+                .register(meterRegistry);
+        penaltyAmount = Counter.builder("creditmodule.payments.adjustment")
+                .description("Late payment penalties charged")
+                .tag("type", "penalty")
+                .register(meterRegistry);
+        creditReserved = Counter.builder("creditmodule.credit.reserved")
+                .description("Credit limit reserved by new loans")
+                .register(meterRegistry);
+        creditReleased = Counter.builder("creditmodule.credit.released")
+                .description("Credit limit released by paid off loans")
+                .register(meterRegistry);
+    }
+
+    public void installmentsPaid(int count) {
+        afterCommit(() -> installmentsPaid.increment(count));
+    }
+
+    public void discount(double amount) {
+        afterCommit(() -> discountAmount.increment(amount));
+    }
+
+    public void penalty(double amount) {
+        afterCommit(() -> penaltyAmount.increment(amount));
+    }
+
+    public void creditReserved(double amount) {
+        afterCommit(() -> creditReserved.increment(amount));
+    }
+
+    public void creditReleased(double amount) {
+        afterCommit(() -> creditReleased.increment(amount));
+    }
+
+    private static void afterCommit(Runnable increment) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment.run();
+            }
+        });
+    }
+}
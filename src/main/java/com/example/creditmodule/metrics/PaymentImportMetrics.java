@@ -0,0 +1,40 @@
+package com.example.creditmodule.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of payment file imports. The rate of {@code creditmodule.payment.import.rows} is rows per
+ * second, the chunk timer shows how long one chunk transaction takes.
+ */
+@Component
+public class PaymentImportMetrics {
+
+    private final Counter paidRows;
+    private final Counter rejectedRows;
+    private final Timer chunks;
+
+    public PaymentImportMetrics(MeterRegistry meterRegistry) {
+        paidRows = Counter.builder("creditmodule.payment.import.rows")
+                .tag("outcome", "paid")
+                .description("Imported payment rows")
+                .register(meterRegistry);
+        rejectedRows = Counter.builder("creditmodule.payment.import.rows")
+                .tag("outcome", "rejected")
+                .description("Imported payment rows")
+                .register(meterRegistry);
+        chunks = Timer.builder("creditmodule.payment.import.chunk")
+                .description("Time to pay one chunk of imported rows")
+                .register(meterRegistry);
+    }
+
+    public void chunkProcessed(int paid, int rejected, long nanos) {
+        paidRows.increment(paid);
+        rejectedRows.increment(rejected);
+        chunks.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
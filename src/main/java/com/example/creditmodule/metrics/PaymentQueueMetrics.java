@@ -0,0 +1,55 @@
+package com.example.creditmodule.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Depth and throughput of the asynchronous payment queue. A growing {@code creditmodule.payment.queue.size}
+ * with a flat batch rate means the workers cannot keep up, rejected submissions were answered with 429.
+ * A batch is what one worker took from its queue for one partition, paid and committed in one transaction.
+ */
+@Component
+public class PaymentQueueMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+    private final Timer batches;
+    private final DistributionSummary batchSize;
+
+    public PaymentQueueMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        rejected = Counter.builder("creditmodule.payment.queue.rejected")
+                .description("Payments rejected because the queue was full")
+                .register(meterRegistry);
+        batches = Timer.builder("creditmodule.payment.queue.batch")
+                .description("Time to pay and commit a batch of queued payments of one partition")
+                .register(meterRegistry);
+        batchSize = DistributionSummary.builder("creditmodule.payment.queue.batch.size")
+                .description("Payments committed in one transaction of a partition")
+                .register(meterRegistry);
+    }
+
+    public void monitor(List<? extends Collection<?>> queues) {
+        Gauge.builder("creditmodule.payment.queue.size", queues,
+                        q -> q.stream().mapToInt(Collection::size).sum())
+                .description("Payments waiting in the queue")
+                .register(meterRegistry);
+    }
+
+    public void rejected() {
+        rejected.increment();
+    }
+
+    public void batchCommitted(int payments, long nanos) {
+        batchSize.record(payments);
+        batches.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
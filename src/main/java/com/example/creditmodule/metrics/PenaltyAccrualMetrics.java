@@ -0,0 +1,33 @@
+package com.example.creditmodule.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the penalty accrual job. The rate of {@code creditmodule.penalty.accrual.installments}
+ * is installments per second, the chunk timer shows how long one chunk takes across all workers.
+ */
+@Component
+public class PenaltyAccrualMetrics {
+
+    private final Counter installments;
+    private final Timer chunks;
+
+    public PenaltyAccrualMetrics(MeterRegistry meterRegistry) {
+        installments = Counter.builder("creditmodule.penalty.accrual.installments")
+                .description("Overdue installments whose penalty was accrued")
+                .register(meterRegistry);
+        chunks = Timer.builder("creditmodule.penalty.accrual.chunk")
+                .description("Time to accrue the penalties of one chunk")
+                .register(meterRegistry);
+    }
+
+    public void chunkProcessed(int installmentCount, long nanos) {
+        installments.increment(installmentCount);
+        chunks.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
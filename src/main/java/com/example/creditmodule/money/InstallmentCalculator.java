@@ -0,0 +1,35 @@
+package com.example.creditmodule.money;
+
+import java.time.LocalDate;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * Schedule and payment arithmetic on primitive minor units. Nothing here allocates, so the loops of
+ * {@code createInstallments} and {@code payLoan} do not create garbage per installment.
+ */
+public final class InstallmentCalculator {
+
+    //0.1% of the installment per day early (discount) or late (penalty)
+    private static final long ADJUSTMENT_PER_DAY_DIVISOR = 1000;
+
+    private InstallmentCalculator() {
+    }
+
+    public static long totalRepayment(long loanAmount, double interestRate) {
+        return Math.round(loanAmount * (1 + interestRate));
+    }
+
+    //every installment gets the same share, the last one also takes the cents left over by the division,
+    //so the schedule always adds up to the total
+    public static long installmentAmount(long totalAmount, int numberOfInstallments, int index) {
+        long amount = totalAmount / numberOfInstallments;
+        return index == numberOfInstallments - 1 ? amount + totalAmount % numberOfInstallments : amount;
+    }
+
+    //negative for a discount when paid before the due date, positive for a penalty when paid after it
+    public static long adjustment(long installmentAmount, LocalDate dueDate, LocalDate paymentDate) {
+        long daysBeforeDue = DAYS.between(paymentDate, dueDate);
+        return Money.divideRounded(-installmentAmount * daysBeforeDue, ADJUSTMENT_PER_DAY_DIVISOR);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.creditmodule.money;
+
+/**
+ * Amounts are stored as {@code long} minor units (cents) in the entities and BIGINT columns, so sums
+ * and comparisons are exact. The API keeps decimal major units, conversions happen at the DTO boundary.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final long MINOR_UNITS = 100;
+
+    private Money() {
+    }
+
+    //rounds to the nearest cent, so binary floating point errors of the input do not truncate a cent
+    public static long toMinor(double major) {
+        return Math.round(major * MINOR_UNITS);
+    }
+
+    public static long toMinor(Double major, long defaultMinor) {
+        return major != null ? toMinor(major.doubleValue()) : defaultMinor;
+    }
+
+    public static double toMajor(long minor) {
+        return (double) minor / MINOR_UNITS;
+    }
+
+    //integer division rounding half away from zero
+    public static long divideRounded(long dividend, long divisor) {
+        long half = divisor / 2;
+        return dividend >= 0 ? (dividend + half) / divisor : -((-dividend + half) / divisor);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.creditmodule.partition;
+
+import java.util.function.Supplier;
+
+/**
+ * The partition the current thread works in. {@link PartitionRoutingDataSource} hands out connections of
+ * this partition and {@link PartitionedSequenceGenerator} gives new rows ids of it. With a single partition
+ * a thread that is not bound works in {@link #DEFAULT_PARTITION}; with several partitions every caller,
+ * startup and migrations included, has to bind one.
+ */
+public final class PartitionContext {
+
+    //the only partition when there is one, and the one startup binds for Hibernate's schema validation
+    public static final int DEFAULT_PARTITION = 0;
+
+    private static final ThreadLocal<Integer> PARTITION = new ThreadLocal<>();
+
+    private PartitionContext() {
+    }
+
+    //an unbound caller with several partitions is a routing bug, it must not end up in partition 0 unnoticed
+    public static int current(int partitionCount) {
+        Integer partition = PARTITION.get();
+        if (partition != null) {
+            return partition;
+        }
+        if (partitionCount > 1) {
+            throw new IllegalStateException("No partition is bound to the current thread, there are " + partitionCount);
+        }
+        return DEFAULT_PARTITION;
+    }
+
+    //a transaction holds a connection of one partition, so a bound thread cannot switch to another one
+    public static <T> T callIn(int partition, Supplier<T> call) {
+        Integer bound = PARTITION.get();
+        if (bound != null) {
+            if (bound != partition) {
+                throw new IllegalStateException("Partition " + partition + " was requested inside partition " + bound);
+            }
+            return call.get();
+        }
+        PARTITION.set(partition);
+        try {
+            return call.get();
+        } finally {
+            PARTITION.remove();
+        }
+    }
+
+    public static void runIn(int partition, Runnable call) {
+        callIn(partition, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.creditmodule.partition;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Maps customers, loans and installments to their partition and runs calls in it. Ids are generated by
+ * {@link PartitionedSequenceGenerator} as {@code sequenceValue * partitionCount + partition}, and loans and
+ * installments are created in the partition of their customer, so the partition of any of these ids is
+ * {@code id mod partitionCount} without a lookup. New customers are spread over the partitions round-robin.
+ * <p>
+ * The partition count is fixed: changing it moves every id to another partition.
+ */
+public class PartitionRouter implements AutoCloseable {
+
+    private final int partitionCount;
+    private final AtomicInteger nextPartition = new AtomicInteger();
+    //null with a single partition, reports then run on the calling thread
+    private final ExecutorService scatterExecutor;
+
+    public PartitionRouter(int partitionCount) {
+        this(partitionCount, new CustomizableThreadFactory("partition-scatter-"));
+    }
+
+    public PartitionRouter(int partitionCount, ThreadFactory scatterThreads) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("At least one partition is needed, got " + partitionCount);
+        }
+        this.partitionCount = partitionCount;
+        scatterExecutor = partitionCount == 1 ? null
+                : Executors.newFixedThreadPool(partitionCount, scatterThreads);
+    }
+
+    public int partitionCount() {
+        return partitionCount;
+    }
+
+    //null ids are not routed, the call fails the same way in every partition
+    public int partitionOf(Long id) {
+        return id == null ? PartitionContext.DEFAULT_PARTITION : (int) Math.floorMod(id, (long) partitionCount);
+    }
+
+    public int nextPartition() {
+        return Math.floorMod(nextPartition.getAndIncrement(), partitionCount);
+    }
+
+    public <T> T callIn(int partition, Supplier<T> call) {
+        return PartitionContext.callIn(partition, call);
+    }
+
+    public <T> T callInPartitionOf(Long id, Supplier<T> call) {
+        return PartitionContext.callIn(partitionOf(id), call);
+    }
+
+    public void runInPartitionOf(Long id, Runnable call) {
+        PartitionContext.runIn(partitionOf(id), call);
+    }
+
+    //positions of the items per partition, in partition order and in list order within a partition
+    public <T> Map<Integer, List<Integer>> indexesByPartition(List<T> items, Function<T, Long> idOf) {
+        Map<Integer, List<Integer>> indexes = new TreeMap<>();
+        for (int index = 0; index < items.size(); index++) {
+            indexes.computeIfAbsent(partitionOf(idOf.apply(items.get(index))), partition -> new ArrayList<>()).add(index);
+        }
+        return indexes;
+    }
+
+    /**
+     * Runs the call in every partition at the same time and returns the results in partition order.
+     * The first failure is rethrown once all partitions are done.
+     */
+    public <T> List<T> scatter(IntFunction<T> call) {
+        List<T> results = new ArrayList<>(partitionCount);
+        if (scatterExecutor == null) {
+            results.add(PartitionContext.callIn(PartitionContext.DEFAULT_PARTITION,
+                    () -> call.apply(PartitionContext.DEFAULT_PARTITION)));
+            return results;
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(partitionCount);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            int current = partition;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> PartitionContext.callIn(current, () -> call.apply(current)), scatterExecutor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        futures.forEach(future -> results.add(future.join()));
+        return results;
+    }
+
+    @Override
+    public void close() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.creditmodule.partition;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Hands out connections of the partition bound by {@link PartitionContext}. The partition has to be bound
+ * before a transaction starts, the transaction keeps the connection it got first.
+ */
+public class PartitionRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final int partitionCount;
+
+    public PartitionRoutingDataSource(int partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return PartitionContext.current(partitionCount);
+    }
+
+    //the partition pools are not beans, they are closed with the router
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
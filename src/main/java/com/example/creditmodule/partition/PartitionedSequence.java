@@ -0,0 +1,22 @@
+package com.example.creditmodule.partition;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the id from a database sequence of the current partition, see {@link PartitionedSequenceGenerator}.
+ */
+@IdGeneratorType(PartitionedSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PartitionedSequence {
+
+    //the sequence has to be incremented by allocationSize, the ids in between are handed out in memory
+    String name();
+
+    int allocationSize() default 50;
+}
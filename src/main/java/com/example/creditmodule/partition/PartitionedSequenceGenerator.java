@@ -0,0 +1,87 @@
+package com.example.creditmodule.partition;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import java.lang.reflect.Member;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pooled sequence ids that carry their partition: a block of {@code allocationSize} values is read from the
+ * sequence in the current partition's database and every value {@code v} becomes the id
+ * {@code v * partitionCount + partition}. Ids of different partitions never collide, and with a single
+ * partition they are the plain sequence values.
+ */
+public class PartitionedSequenceGenerator implements IdentifierGenerator {
+
+    //set by PartitionConfig, the number of partitions the ids are spread over
+    public static final String PARTITION_COUNT = "creditmodule.partition.count";
+
+    private final String sequenceName;
+    private final int allocationSize;
+    private final int partitionCount;
+    private final Block[] blocks;
+
+    //the values of the current block of one partition, next == limit means it is used up
+    private static final class Block {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long limit;
+    }
+
+    public PartitionedSequenceGenerator(PartitionedSequence config, Member member, CustomIdGeneratorCreationContext context) {
+        sequenceName = config.name();
+        allocationSize = Math.max(1, config.allocationSize());
+        partitionCount = ConfigurationHelper.getInt(PARTITION_COUNT,
+                context.getServiceRegistry().getService(ConfigurationService.class).getSettings(), 1);
+        blocks = new Block[partitionCount];
+        for (int partition = 0; partition < partitionCount; partition++) {
+            blocks[partition] = new Block();
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        //the session's connection belongs to this partition, see PartitionRoutingDataSource
+        int partition = PartitionContext.current(partitionCount);
+        if (partition >= partitionCount) {
+            throw new IllegalStateException("Partition " + partition + " does not exist, there are " + partitionCount);
+        }
+        Block block = blocks[partition];
+        block.lock.lock();
+        try {
+            if (block.next == block.limit) {
+                block.next = nextValue(session);
+                block.limit = block.next + allocationSize;
+            }
+            return block.next++ * partitionCount + partition;
+        } finally {
+            block.lock.unlock();
+        }
+    }
+
+    //the same statement the built-in sequence generator sends, through the session so it is counted and logged
+    private long nextValue(SharedSessionContractImplementor session) {
+        String sql = session.getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(sequenceName);
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            ResultSet resultSet = jdbcCoordinator.getResultSetReturn().extract(statement, sql);
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper()
+                    .convert(e, "Could not read the next value of " + sequenceName, sql);
+        } finally {
+            jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbcCoordinator.afterStatementExecution();
+        }
+    }
+}
@@ -1,7 +1,24 @@
 package com.example.creditmodule.repository;
 
 import com.example.creditmodule.entity.Customer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface CustomerRepository  extends JpaRepository<Customer, Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface CustomerRepository  extends JpaRepository<Customer, Long>, CustomerRepositoryCustom {
+
+    //ordered by id so concurrent chunks always lock customers in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Customer c where c.id in :ids order by c.id")
+    List<Customer> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    //keyset page of customer ids for jobs that walk all customers in chunks
+    @Query("select c.id from Customer c where c.id > :afterId order by c.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
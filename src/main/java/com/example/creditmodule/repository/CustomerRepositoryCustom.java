@@ -0,0 +1,10 @@
+package com.example.creditmodule.repository;
+
+public interface CustomerRepositoryCustom {
+
+    //both bump loanBookVersion, a reservation adds a loan and a release pays one off
+    //returns 0 when the customer does not have enough limit left, the check and the update are one statement
+    int reserveCreditLimit(Long customerId, Long amount);
+
+    int releaseCreditLimit(Long customerId, Long amount);
+}
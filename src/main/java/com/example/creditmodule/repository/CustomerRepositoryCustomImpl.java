@@ -0,0 +1,56 @@
+package com.example.creditmodule.repository;
+
+import com.example.creditmodule.entity.Customer;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Credit limit updates run as plain SQL so Hibernate does not treat them as bulk updates, which would
+ * evict every customer from the second-level cache. Only the updated customer is evicted, once right
+ * away and once after the transaction ends, so a copy cached from the old row before the commit does
+ * not survive it.
+ */
+public class CustomerRepositoryCustomImpl implements CustomerRepositoryCustom {
+
+    private static final String RESERVE_CREDIT_LIMIT = "update customer set used_credit_limit = used_credit_limit + ?, " +
+            "loan_book_version = loan_book_version + 1 where id = ? and used_credit_limit + ? <= credit_limit";
+    private static final String RELEASE_CREDIT_LIMIT = "update customer set used_credit_limit = used_credit_limit - ?, " +
+            "loan_book_version = loan_book_version + 1 where id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public int reserveCreditLimit(Long customerId, Long amount) {
+        int updated = jdbcTemplate.update(RESERVE_CREDIT_LIMIT, amount, customerId, amount);
+        if (updated > 0) {
+            evict(customerId);
+        }
+        return updated;
+    }
+
+    @Override
+    public int releaseCreditLimit(Long customerId, Long amount) {
+        int updated = jdbcTemplate.update(RELEASE_CREDIT_LIMIT, amount, customerId);
+        evict(customerId);
+        return updated;
+    }
+
+    private void evict(Long customerId) {
+        entityManagerFactory.getCache().evict(Customer.class, customerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    entityManagerFactory.getCache().evict(Customer.class, customerId);
+                }
+            });
+        }
+    }
+}
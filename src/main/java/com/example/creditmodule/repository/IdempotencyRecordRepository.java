@@ -0,0 +1,20 @@
+package com.example.creditmodule.repository;
+
+import com.example.creditmodule.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.createdAt < :createdBefore")
+    int deleteExpired(@Param("key") String key, @Param("createdBefore") LocalDateTime createdBefore);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :createdBefore")
+    int deleteAllExpired(@Param("createdBefore") LocalDateTime createdBefore);
+}
@@ -0,0 +1,7 @@
+package com.example.creditmodule.repository;
+
+import com.example.creditmodule.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -1,11 +1,60 @@
 package com.example.creditmodule.repository;
 
+import com.example.creditmodule.dto.response.LoanInstallmentResponseDTO;
 import com.example.creditmodule.entity.LoanInstallment;
+import com.example.creditmodule.entity.PortfolioBucket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment,Long> {
+public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment,Long>, LoanInstallmentRepositoryCustom {
     List<LoanInstallment> findByLoanId(Long loanId);
 
+    //the installments of findByLoanId, read straight into the response DTOs without managed entities
+    @Query("select new com.example.creditmodule.dto.response.LoanInstallmentResponseDTO(" +
+            "i.id, i.amount, i.paidAmount, i.dueDate, i.paymentDate, i.isPaid) " +
+            "from LoanInstallment i where i.loan.id = :loanId")
+    List<LoanInstallmentResponseDTO> findResponsesByLoanId(@Param("loanId") Long loanId);
+
+    @Query("select i from LoanInstallment i where i.loan.id = :loanId and i.isPaid = false and i.dueDate < :dueBefore order by i.dueDate")
+    List<LoanInstallment> findPayableInstallments(@Param("loanId") Long loanId, @Param("dueBefore") LocalDate dueBefore);
+
+    //the rows of findPayableInstallments without managed entities, for payment quotes
+    @Query("select new com.example.creditmodule.repository.PayableInstallment(i.id, i.amount, i.dueDate) " +
+            "from LoanInstallment i where i.loan.id = :loanId and i.isPaid = false and i.dueDate < :dueBefore order by i.dueDate")
+    List<PayableInstallment> findPayableInstallmentRows(@Param("loanId") Long loanId, @Param("dueBefore") LocalDate dueBefore);
+
+    long countByLoanIdAndIsPaidFalse(Long loanId);
+
+    //all unpaid installments of many loans at once, grouped by loan and earliest first
+    @Query("select i from LoanInstallment i where i.loan.id in :loanIds and i.isPaid = false order by i.loan.id, i.dueDate")
+    List<LoanInstallment> findUnpaidByLoanIds(@Param("loanIds") Collection<Long> loanIds);
+
+    //forward-only cursor over all installments of a customer, grouped by loan; must be consumed in a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select i from LoanInstallment i join fetch i.loan l where l.customer.id = :customerId order by l.id, i.dueDate")
+    Stream<LoanInstallment> streamByCustomerId(@Param("customerId") Long customerId);
+
+    //portfolio buckets recomputed from the installments, used to verify the maintained ones
+    @Query("select new com.example.creditmodule.entity.PortfolioBucket(l.customer.id, i.dueDate, sum(i.amount), count(i)) " +
+            "from LoanInstallment i join i.loan l where i.isPaid = false and l.customer.id in :customerIds " +
+            "group by l.customer.id, i.dueDate")
+    List<PortfolioBucket> sumUnpaidByCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+
+    //the portfolio totals recomputed from the installments, used to verify the maintained ones
+    @Query("select new com.example.creditmodule.entity.PortfolioBucket(0L, i.dueDate, sum(i.amount), count(i)) " +
+            "from LoanInstallment i where i.isPaid = false group by i.dueDate")
+    List<PortfolioBucket> sumUnpaidOfAllCustomers();
+
 }
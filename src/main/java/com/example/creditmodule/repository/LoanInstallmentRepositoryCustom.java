@@ -0,0 +1,16 @@
+package com.example.creditmodule.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LoanInstallmentRepositoryCustom {
+
+    record OverdueInstallment(long id, long amount, LocalDate dueDate) {
+    }
+
+    //keyset chunk of unpaid installments due before asOf whose penalty was not accrued as of asOf yet
+    List<OverdueInstallment> findOverdueChunk(LocalDate asOf, long afterId, int limit);
+
+    //penalties.get(i) belongs to installments.get(i), returns the number of rows updated
+    int accruePenalties(List<OverdueInstallment> installments, long[] penalties, LocalDate asOf);
+}
@@ -0,0 +1,56 @@
+package com.example.creditmodule.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+public class LoanInstallmentRepositoryCustomImpl implements LoanInstallmentRepositoryCustom {
+
+    private static final String FIND_OVERDUE_CHUNK = "select id, amount, due_date from loan_installment " +
+            "where is_paid = false and due_date < ? and (penalty_accrued_on is null or penalty_accrued_on < ?) " +
+            "and id > ? order by id fetch first ? rows only";
+    //is_paid is checked again, an installment paid since it was read keeps its row as payLoan left it
+    private static final String ACCRUE_PENALTY = "update loan_installment " +
+            "set accrued_penalty = ?, penalty_accrued_on = ?, is_overdue = true where id = ? and is_paid = false";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<OverdueInstallment> findOverdueChunk(LocalDate asOf, long afterId, int limit) {
+        Date asOfDate = Date.valueOf(asOf);
+        return jdbcTemplate.query(FIND_OVERDUE_CHUNK,
+                (rs, rowNum) -> new OverdueInstallment(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate()),
+                asOfDate, asOfDate, afterId, limit);
+    }
+
+    @Override
+    public int accruePenalties(List<OverdueInstallment> installments, long[] penalties, LocalDate asOf) {
+        Date asOfDate = Date.valueOf(asOf);
+        //one JDBC batch for the whole list
+        int[] updateCounts = jdbcTemplate.batchUpdate(ACCRUE_PENALTY, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, penalties[i]);
+                ps.setDate(2, asOfDate);
+                ps.setLong(3, installments.get(i).id());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return installments.size();
+            }
+        });
+        int updated = 0;
+        for (int count : updateCounts) {
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+}
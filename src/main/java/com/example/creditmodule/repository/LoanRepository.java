@@ -1,14 +1,46 @@
 package com.example.creditmodule.repository;
 
+import com.example.creditmodule.dto.response.LoanResponseDTO;
 import com.example.creditmodule.entity.Loan;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
     List<Loan> findByCustomerId(Long customerId);
 
+    //keyset page read straight into the response DTOs without managed entities: pass the last id of the
+    //previous page as afterId, null filters are ignored
+    @Query("select new com.example.creditmodule.dto.response.LoanResponseDTO(" +
+            "l.id, l.loanAmount, l.numberOfInstallment, l.createDate, l.isPaid) " +
+            "from Loan l where l.customer.id = :customerId " +
+            "and (:numberOfInstallment is null or l.numberOfInstallment = :numberOfInstallment) " +
+            "and (:isPaid is null or l.isPaid = :isPaid) " +
+            "and (:afterId is null or l.id > :afterId) " +
+            "order by l.id")
+    List<LoanResponseDTO> findLoanResponsePage(@Param("customerId") Long customerId,
+                                               @Param("numberOfInstallment") Integer numberOfInstallment,
+                                               @Param("isPaid") Boolean isPaid,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    //payments of the same loan are serialized, so an installment cannot be settled twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.id = :id")
+    Optional<Loan> findByIdForUpdate(@Param("id") Long id);
+
+    //ordered by id so concurrent payment batches always lock loans in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.id in :ids order by l.id")
+    List<Loan> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 
 }
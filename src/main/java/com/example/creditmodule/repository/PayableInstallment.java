@@ -0,0 +1,10 @@
+package com.example.creditmodule.repository;
+
+import java.time.LocalDate;
+
+/**
+ * The columns of an unpaid installment that the payment rule needs, read without a managed entity.
+ * Amounts are in minor units, see {@link com.example.creditmodule.money.Money}.
+ */
+public record PayableInstallment(Long id, long amount, LocalDate dueDate) {
+}
@@ -0,0 +1,23 @@
+package com.example.creditmodule.repository;
+
+import com.example.creditmodule.entity.PortfolioBucket;
+import com.example.creditmodule.entity.PortfolioBucketId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PortfolioBucketRepository extends JpaRepository<PortfolioBucket, PortfolioBucketId>, PortfolioBucketRepositoryCustom {
+
+    List<PortfolioBucket> findByCustomerId(Long customerId);
+
+    //the rebuild holds these locks while it reads the installments, so no payment or new loan slips in between;
+    //rows are locked in the order addToBuckets updates them, so the two cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from PortfolioBucket b where b.customerId in :customerIds order by b.customerId, b.dueDate")
+    List<PortfolioBucket> findByCustomerIdInForUpdate(@Param("customerIds") Collection<Long> customerIds);
+}
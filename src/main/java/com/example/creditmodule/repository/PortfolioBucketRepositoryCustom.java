@@ -0,0 +1,24 @@
+package com.example.creditmodule.repository;
+
+import com.example.creditmodule.entity.PortfolioBucket;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PortfolioBucketRepositoryCustom {
+
+    //adds unpaidAmount and unpaidCount of every delta to its bucket and to the portfolio totals, missing rows are created
+    void addToBuckets(Collection<PortfolioBucket> deltas);
+
+    //the same for the customer buckets only, in the same lock order
+    void addToCustomerBuckets(Collection<PortfolioBucket> deltas);
+
+    //adds the deltas to one stripe of the portfolio totals only
+    void addToTotals(Collection<PortfolioBucket> deltas);
+
+    //the portfolio totals per due date, one bucket of ALL_CUSTOMERS per due date
+    List<PortfolioBucket> sumTotals();
+
+    //the same, with every stripe locked until the transaction ends
+    List<PortfolioBucket> sumTotalsForUpdate();
+}
@@ -0,0 +1,144 @@
+package com.example.creditmodule.repository;
+
+import com.example.creditmodule.entity.PortfolioBucket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class PortfolioBucketRepositoryCustomImpl implements PortfolioBucketRepositoryCustom {
+
+    //adds to an existing bucket or creates it in one statement, so no failed insert has to be retried in the
+    //transaction of the loan or payment; the casts type the parameters of the VALUES row
+    private static final String UPSERT = "merge into portfolio_bucket b " +
+            "using (values (cast(? as bigint), cast(? as date), cast(? as bigint), cast(? as bigint))) " +
+            "as d (customer_id, due_date, unpaid_amount, unpaid_count) " +
+            "on b.customer_id = d.customer_id and b.due_date = d.due_date " +
+            "when matched then update set unpaid_amount = b.unpaid_amount + d.unpaid_amount, " +
+            "unpaid_count = b.unpaid_count + d.unpaid_count " +
+            "when not matched then insert (customer_id, due_date, unpaid_amount, unpaid_count) " +
+            "values (d.customer_id, d.due_date, d.unpaid_amount, d.unpaid_count)";
+
+    private static final String UPSERT_TOTAL = "merge into portfolio_total t " +
+            "using (values (cast(? as integer), cast(? as date), cast(? as bigint), cast(? as bigint))) " +
+            "as d (stripe, due_date, unpaid_amount, unpaid_count) " +
+            "on t.stripe = d.stripe and t.due_date = d.due_date " +
+            "when matched then update set unpaid_amount = t.unpaid_amount + d.unpaid_amount, " +
+            "unpaid_count = t.unpaid_count + d.unpaid_count " +
+            "when not matched then insert (stripe, due_date, unpaid_amount, unpaid_count) " +
+            "values (d.stripe, d.due_date, d.unpaid_amount, d.unpaid_count)";
+
+    //stripes x due dates rows, not the buckets
+    private static final String SUM_TOTALS = "select due_date, sum(unpaid_amount), sum(unpaid_count) " +
+            "from portfolio_total group by due_date";
+
+    //in the order writers lock them: one stripe at a time, by due date
+    private static final String SELECT_TOTALS_FOR_UPDATE = "select due_date, unpaid_amount, unpaid_count " +
+            "from portfolio_total order by stripe, due_date for update";
+
+    //always the same order, so two transactions touching the same buckets cannot deadlock
+    private static final Comparator<PortfolioBucket> LOCK_ORDER = Comparator
+            .comparing(PortfolioBucket::getCustomerId)
+            .thenComparing(PortfolioBucket::getDueDate);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.portfolio.total-stripes:16}")
+    private int totalStripes;
+
+    //a transaction calls this once, so every writer locks its customer buckets first and then the totals
+    @Override
+    public void addToBuckets(Collection<PortfolioBucket> deltas) {
+        addToCustomerBuckets(deltas);
+        addToTotals(deltas);
+    }
+
+    @Override
+    public void addToCustomerBuckets(Collection<PortfolioBucket> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<PortfolioBucket> sortedDeltas = new ArrayList<>(deltas);
+        sortedDeltas.sort(LOCK_ORDER);
+
+        //the increment is done by the database, concurrent transactions cannot lose an update
+        jdbcTemplate.batchUpdate(UPSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PortfolioBucket delta = sortedDeltas.get(i);
+                ps.setLong(1, delta.getCustomerId());
+                ps.setDate(2, Date.valueOf(delta.getDueDate()));
+                ps.setLong(3, delta.getUnpaidAmount());
+                ps.setLong(4, delta.getUnpaidCount());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return sortedDeltas.size();
+            }
+        });
+    }
+
+    @Override
+    public void addToTotals(Collection<PortfolioBucket> deltas) {
+        //TreeMap: one row per due date, updated in due date order
+        Map<LocalDate, long[]> totals = new TreeMap<>();
+        for (PortfolioBucket delta : deltas) {
+            long[] total = totals.computeIfAbsent(delta.getDueDate(), dueDate -> new long[2]);
+            total[0] += delta.getUnpaidAmount();
+            total[1] += delta.getUnpaidCount();
+        }
+        if (totals.isEmpty()) {
+            return;
+        }
+        //any stripe will do, writers of the same due dates mostly update different rows
+        int stripe = ThreadLocalRandom.current().nextInt(Math.max(1, totalStripes));
+        List<Map.Entry<LocalDate, long[]>> sortedTotals = new ArrayList<>(totals.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_TOTAL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<LocalDate, long[]> total = sortedTotals.get(i);
+                ps.setInt(1, stripe);
+                ps.setDate(2, Date.valueOf(total.getKey()));
+                ps.setLong(3, total.getValue()[0]);
+                ps.setLong(4, total.getValue()[1]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return sortedTotals.size();
+            }
+        });
+    }
+
+    @Override
+    public List<PortfolioBucket> sumTotals() {
+        return jdbcTemplate.query(SUM_TOTALS, (resultSet, rowNum) -> new PortfolioBucket(PortfolioBucket.ALL_CUSTOMERS,
+                resultSet.getDate(1).toLocalDate(), resultSet.getLong(2), resultSet.getLong(3)));
+    }
+
+    @Override
+    public List<PortfolioBucket> sumTotalsForUpdate() {
+        Map<LocalDate, PortfolioBucket> totals = new TreeMap<>();
+        jdbcTemplate.query(SELECT_TOTALS_FOR_UPDATE, resultSet -> {
+            PortfolioBucket total = totals.computeIfAbsent(resultSet.getDate(1).toLocalDate(),
+                    dueDate -> new PortfolioBucket(PortfolioBucket.ALL_CUSTOMERS, dueDate, 0, 0));
+            total.setUnpaidAmount(total.getUnpaidAmount() + resultSet.getLong(2));
+            total.setUnpaidCount(total.getUnpaidCount() + resultSet.getLong(3));
+        });
+        return new ArrayList<>(totals.values());
+    }
+}
@@ -3,6 +3,10 @@ package com.example.creditmodule.service;
 import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
 import com.example.creditmodule.entity.Customer;
 
+import java.util.List;
+
 public interface CustomerService {
     Customer createCustomer(CreateCustomerRequestDto createCustomerRequestDto);
+    List<Customer> createCustomers(List<CreateCustomerRequestDto> createCustomerRequestDtos);
+    boolean customerExists(Long customerId);
 }
@@ -0,0 +1,10 @@
+package com.example.creditmodule.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    String HEADER = "Idempotency-Key";
+
+    <T> T execute(String operation, String idempotencyKey, Object request, Class<T> responseType, Supplier<T> action);
+    int deleteExpired();
+}
@@ -3,17 +3,30 @@ package com.example.creditmodule.service;
 import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
 import com.example.creditmodule.dto.request.ListLoansRequestDTO;
 import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.request.PaymentQuoteRequestDTO;
+import com.example.creditmodule.dto.response.BulkLoanResponseDTO;
+import com.example.creditmodule.dto.response.BulkPaymentItemResultDTO;
+import com.example.creditmodule.dto.response.LoanExportDTO;
 import com.example.creditmodule.dto.response.LoanInstallmentResponseDTO;
+import com.example.creditmodule.dto.response.LoanPageResponseDTO;
 import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
-import com.example.creditmodule.dto.response.LoanResponseDTO;
+import com.example.creditmodule.dto.response.PaymentQuoteResponseDTO;
 import com.example.creditmodule.entity.Loan;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LoanService {
 
     Loan createLoan(CreateLoanRequestDTO loanRequestDTO);
-    List<LoanResponseDTO> listLoans(ListLoansRequestDTO listLoansRequestDTO);
+    BulkLoanResponseDTO createLoans(List<CreateLoanRequestDTO> loanRequestDTOs);
+    LoanPageResponseDTO listLoans(ListLoansRequestDTO listLoansRequestDTO);
     List<LoanInstallmentResponseDTO> listInstallments(Long loanId);
+    //versions behind the list ETags, null when the loan or customer does not exist
+    Long installmentsVersion(Long loanId);
+    Long loanBookVersion(Long customerId);
     LoanPaymentResponseDTO payLoan(PayLoanRequest payLoanRequestDTO);
+    PaymentQuoteResponseDTO quotePayment(PaymentQuoteRequestDTO paymentQuoteRequestDTO);
+    List<BulkPaymentItemResultDTO> payLoans(List<PayLoanRequest> payLoanRequests);
+    void exportLoans(Long customerId, Consumer<LoanExportDTO> loanConsumer);
 }
@@ -0,0 +1,8 @@
+package com.example.creditmodule.service;
+
+import com.example.creditmodule.dto.response.PaymentImportResultDTO;
+import com.example.creditmodule.enums.PaymentFileFormat;
+
+public interface PaymentImportService {
+    PaymentImportResultDTO importFile(String fileName, PaymentFileFormat format);
+}
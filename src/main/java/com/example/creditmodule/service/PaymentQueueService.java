@@ -0,0 +1,9 @@
+package com.example.creditmodule.service;
+
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.response.PaymentTicketDTO;
+
+public interface PaymentQueueService {
+    PaymentTicketDTO submit(PayLoanRequest payLoanRequest);
+    PaymentTicketDTO getTicket(String ticketId);
+}
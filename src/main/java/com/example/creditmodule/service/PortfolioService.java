@@ -0,0 +1,14 @@
+package com.example.creditmodule.service;
+
+import com.example.creditmodule.dto.response.PortfolioRebuildResultDTO;
+import com.example.creditmodule.dto.response.PortfolioSummaryDTO;
+import com.example.creditmodule.entity.LoanInstallment;
+
+import java.util.List;
+
+public interface PortfolioService {
+    void installmentsCreated(List<LoanInstallment> installments);
+    void installmentsPaid(List<LoanInstallment> installments);
+    PortfolioSummaryDTO getSummary(Long customerId);
+    PortfolioRebuildResultDTO rebuild();
+}
@@ -2,27 +2,62 @@ package com.example.creditmodule.service.impl;
 
 import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
 import com.example.creditmodule.entity.Customer;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.partition.PartitionRouter;
 import com.example.creditmodule.repository.CustomerRepository;
 import com.example.creditmodule.service.CustomerService;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "creditmodule.service", description = "Service method latency")
 public class CustomerServiceImpl implements CustomerService {
 
     @Autowired
     CustomerRepository customerRepository;
 
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    PartitionRouter partitionRouter;
+
     @Override
     public Customer createCustomer(CreateCustomerRequestDto createCustomerRequestDto) {
-        Customer customer = new Customer();
-        customer.setName(createCustomerRequestDto.getName());
-        customer.setSurname(createCustomerRequestDto.getSurname());
-        customer.setUsedCreditLimit(createCustomerRequestDto.getUsedCreditLimit() != null ? createCustomerRequestDto.getUsedCreditLimit() : 0.0);
-        customer.setCreditLimit(createCustomerRequestDto.getCreditLimit() != null ? createCustomerRequestDto.getCreditLimit() : 0.0);
+        Customer customer = toCustomer(createCustomerRequestDto);
 
         customerRepository.save(customer);
 
         return customer;
     }
+
+    @Override
+    public List<Customer> createCustomers(List<CreateCustomerRequestDto> createCustomerRequestDtos) {
+        List<Customer> customers = createCustomerRequestDtos.stream()
+                .map(this::toCustomer)
+                .collect(Collectors.toList());
+        //every batch goes to the next partition like a createCustomer call, bound before the transaction starts
+        //ids come from the pooled sequence, so the inserts are sent in JDBC batches on commit
+        return partitionRouter.callIn(partitionRouter.nextPartition(),
+                () -> transactionTemplate.execute(status -> customerRepository.saveAll(customers)));
+    }
+
+    private Customer toCustomer(CreateCustomerRequestDto createCustomerRequestDto) {
+        Customer customer = new Customer();
+        customer.setName(createCustomerRequestDto.getName());
+        customer.setSurname(createCustomerRequestDto.getSurname());
+        customer.setUsedCreditLimit(Money.toMinor(createCustomerRequestDto.getUsedCreditLimit(), 0L));
+        customer.setCreditLimit(Money.toMinor(createCustomerRequestDto.getCreditLimit(), 0L));
+        return customer;
+    }
+
+    @Override
+    public boolean customerExists(Long customerId) {
+        return customerRepository.existsById(customerId);
+    }
 }
@@ -0,0 +1,198 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.entity.IdempotencyRecord;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.repository.IdempotencyRecordRepository;
+import com.example.creditmodule.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per idempotency key. The response of a successful call is stored as
+ * JSON in the idempotency_record table in the same transaction as the business change, so a replay
+ * returns it without running the action again. Calls in flight and recent responses are also kept
+ * in a bounded in-memory cache, a duplicate that arrives while the first call runs waits for its
+ * result instead of racing it. Failed calls are not remembered, the client can retry with the same key.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PartitionRouter partitionRouter;
+
+    @Value("${app.idempotency.record-ttl:24h}")
+    private Duration recordTtl;
+
+    @Value("${app.idempotency.cache-ttl:10m}")
+    private Duration cacheTtl;
+
+    @Value("${app.idempotency.cache-max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${app.idempotency.wait-timeout:30s}")
+    private Duration waitTimeout;
+
+    private Cache<String, IdempotentCall> calls;
+
+    private record IdempotentCall(String requestHash, CompletableFuture<String> response) {
+    }
+
+    @PostConstruct
+    void init() {
+        calls = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, calls, "idempotency");
+    }
+
+    @Override
+    public <T> T execute(String operation, String idempotencyKey, Object request, Class<T> responseType,
+                         Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new CreditModuleException(ErrorMessage.INVALID_IDEMPOTENCY_KEY);
+        }
+        String key = operation + ":" + idempotencyKey;
+        String requestHash = hash(request);
+        IdempotentCall call = new IdempotentCall(requestHash, new CompletableFuture<>());
+        IdempotentCall existing = calls.asMap().putIfAbsent(key, call);
+        if (existing != null) {
+            checkSameRequest(existing.requestHash(), requestHash);
+            return read(await(existing.response()), responseType);
+        }
+        try {
+            String response = executeOnce(key, requestHash, action);
+            call.response().complete(response);
+            return read(response, responseType);
+        } catch (RuntimeException e) {
+            //waiting duplicates get the same error, the next request with this key runs again
+            calls.asMap().remove(key, call);
+            call.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private String executeOnce(String key, String requestHash, Supplier<?> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                idempotencyRecordRepository.deleteExpired(key, now.minus(recordTtl));
+                Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(key);
+                if (stored.isPresent()) {
+                    checkSameRequest(stored.get().getRequestHash(), requestHash);
+                    return stored.get().getResponse();
+                }
+                String response = write(action.get());
+                idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, requestHash, response, now));
+                return response;
+            });
+        } catch (DataIntegrityViolationException e) {
+            //another instance stored the key first, our transaction was rolled back so its response wins
+            IdempotencyRecord stored = idempotencyRecordRepository.findById(key).orElseThrow(() -> e);
+            checkSameRequest(stored.getRequestHash(), requestHash);
+            return stored.getResponse();
+        }
+    }
+
+    @Override
+    public int deleteExpired() {
+        //a record is stored in the partition of the call it belongs to
+        LocalDateTime createdBefore = LocalDateTime.now().minus(recordTtl);
+        return partitionRouter.scatter(partition -> transactionTemplate.execute(status ->
+                        idempotencyRecordRepository.deleteAllExpired(createdBefore)))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    private String await(CompletableFuture<String> response) {
+        try {
+            return response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new CreditModuleException(ErrorMessage.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CreditModuleException(ErrorMessage.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        }
+    }
+
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new CreditModuleException(ErrorMessage.IDEMPOTENCY_KEY_REUSED);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be serialized", e);
+        }
+    }
+
+    private <T> T read(String response, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(response, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response cannot be read", e);
+        }
+    }
+}
@@ -3,30 +3,63 @@ package com.example.creditmodule.service.impl;
 import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
 import com.example.creditmodule.dto.request.ListLoansRequestDTO;
 import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.request.PaymentQuoteRequestDTO;
+import com.example.creditmodule.dto.response.BulkLoanItemResultDTO;
+import com.example.creditmodule.dto.response.BulkLoanResponseDTO;
+import com.example.creditmodule.dto.response.BulkPaymentItemResultDTO;
+import com.example.creditmodule.dto.response.LoanExportDTO;
 import com.example.creditmodule.dto.response.LoanInstallmentResponseDTO;
+import com.example.creditmodule.dto.response.LoanPageResponseDTO;
 import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
 import com.example.creditmodule.dto.response.LoanResponseDTO;
+import com.example.creditmodule.dto.response.PaymentQuoteInstallmentDTO;
+import com.example.creditmodule.dto.response.PaymentQuoteResponseDTO;
 import com.example.creditmodule.entity.Customer;
 import com.example.creditmodule.entity.Loan;
 import com.example.creditmodule.entity.LoanInstallment;
 import com.example.creditmodule.enums.ErrorMessage;
 import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.metrics.LoanMetrics;
+import com.example.creditmodule.money.InstallmentCalculator;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.partition.PartitionRouter;
 import com.example.creditmodule.repository.CustomerRepository;
 import com.example.creditmodule.repository.LoanInstallmentRepository;
 import com.example.creditmodule.repository.LoanRepository;
+import com.example.creditmodule.repository.PayableInstallment;
 import com.example.creditmodule.service.LoanService;
+import com.example.creditmodule.service.PortfolioService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.ObjectUtils;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
-
-import static java.time.temporal.ChronoUnit.DAYS;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "creditmodule.service", description = "Service method latency")
 public class LoanServiceImpl implements LoanService {
 
     @Autowired
@@ -38,61 +71,206 @@ public class LoanServiceImpl implements LoanService {
     @Autowired
     private LoanInstallmentRepository loanInstallmentRepository;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private LoanMetrics loanMetrics;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private PartitionRouter partitionRouter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.loan.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${app.loan.list.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Transactional
     public Loan createLoan(CreateLoanRequestDTO loanRequestDTO) throws CreditModuleException {
         //check if customer exists
         Customer customer = customerRepository.findById(loanRequestDTO.getCustomerId())
                 .orElseThrow(() -> new CreditModuleException(ErrorMessage.CUSTOMER_NOT_FOUND));
 
-        // check if customer has enough limits
-        if (customer.getCreditLimit() < loanRequestDTO.getLoanAmount()) {
-            throw new CreditModuleException(ErrorMessage.INSUFFICIENT_CREDIT_LIMIT);
-        }
-
         if (!isValidInstallmentCount(loanRequestDTO.getNumberOfInstallment())) {
             throw new CreditModuleException(ErrorMessage.INVALID_NUMBER_OF_INSTALLMENTS);
         }
 
-        double totalAmount = loanRequestDTO.getLoanAmount() * (1  + loanRequestDTO.getInterestRate());
+        long loanAmount = Money.toMinor(loanRequestDTO.getLoanAmount());
+        // reserve the limit atomically, parallel loans of the same customer cannot overdraw it
+        if (customerRepository.reserveCreditLimit(customer.getId(), loanAmount) == 0) {
+            throw new CreditModuleException(ErrorMessage.INSUFFICIENT_CREDIT_LIMIT);
+        }
+        loanMetrics.creditReserved(Money.toMajor(loanAmount));
 
-        //All installments should have same amount
-        double installmentAmount = totalAmount / loanRequestDTO.getNumberOfInstallment();
+        long totalAmount = InstallmentCalculator.totalRepayment(loanAmount, loanRequestDTO.getInterestRate());
 
         Loan loan = new Loan();
-        loan.setLoanAmount(loanRequestDTO.getLoanAmount());
+        loan.setLoanAmount(loanAmount);
         loan.setNumberOfInstallment(loanRequestDTO.getNumberOfInstallment());
         loan.setCreateDate(LocalDate.now());
         loan.setCustomer(customer);
         loan.setIsPaid(false);
         Loan savedLoan = loanRepository.save(loan);
 
-        //update customers credit limit
-        customer.setUsedCreditLimit(customer.getUsedCreditLimit() + loanRequestDTO.getLoanAmount());
-        customerRepository.save(customer);
+        List<LoanInstallment> installments = createInstallments(savedLoan, totalAmount, loanRequestDTO.getNumberOfInstallment());
+
+        loanInstallmentRepository.saveAll(installments);
+        portfolioService.installmentsCreated(installments);
+
+        return savedLoan;
+
+    }
+
+    @Override
+    public BulkLoanResponseDTO createLoans(List<CreateLoanRequestDTO> loanRequestDTOs) {
+        int chunkSize = Math.max(1, bulkChunkSize);
+        BulkLoanItemResultDTO[] results = new BulkLoanItemResultDTO[loanRequestDTOs.size()];
+
+        //the loans of a customer are created in the customer's partition, items without one fail validation there
+        Map<Integer, List<Integer>> indexesByPartition = partitionRouter.indexesByPartition(loanRequestDTOs,
+                loanRequestDTO -> loanRequestDTO == null ? null : loanRequestDTO.getCustomerId());
+        for (Map.Entry<Integer, List<Integer>> partitionIndexes : indexesByPartition.entrySet()) {
+            List<Integer> indexes = partitionIndexes.getValue();
+            //every chunk is committed on its own, a failing chunk does not roll back the previous ones
+            for (int from = 0; from < indexes.size(); from += chunkSize) {
+                List<Integer> chunkIndexes = indexes.subList(from, Math.min(from + chunkSize, indexes.size()));
+                List<CreateLoanRequestDTO> chunk = chunkIndexes.stream().map(loanRequestDTOs::get).toList();
+                try {
+                    partitionRouter.callIn(partitionIndexes.getKey(),
+                                    () -> transactionTemplate.execute(status -> createLoanChunk(chunk, chunkIndexes)))
+                            .forEach(result -> results[result.getIndex()] = result);
+                } catch (RuntimeException e) {
+                    for (Integer index : chunkIndexes) {
+                        results[index] = new BulkLoanItemResultDTO(index, null,
+                                ErrorMessage.LOAN_CHUNK_FAILED.getErrorCode(), ErrorMessage.LOAN_CHUNK_FAILED.getMessage());
+                    }
+                }
+            }
+        }
+
+        int createdCount = (int) Arrays.stream(results).filter(result -> result.getLoanId() != null).count();
+        return new BulkLoanResponseDTO(results.length, createdCount, results.length - createdCount, Arrays.asList(results));
+    }
+
+    //indexes.get(i) is the position of chunk.get(i) in the request
+    private List<BulkLoanItemResultDTO> createLoanChunk(List<CreateLoanRequestDTO> chunk, List<Integer> indexes) {
+        //one query for all customers of the chunk instead of one findById per loan,
+        //the rows stay locked until the chunk commits so the in-memory reservation below is safe
+        Set<Long> customerIds = chunk.stream()
+                .filter(Objects::nonNull)
+                .map(CreateLoanRequestDTO::getCustomerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Customer> customers = customerRepository.findAllByIdForUpdate(customerIds).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+
+        List<BulkLoanItemResultDTO> results = new ArrayList<>(chunk.size());
+        //loans.get(i) was created from loanRequests.get(i) and is reported in loanResults.get(i)
+        List<Loan> loans = new ArrayList<>();
+        List<CreateLoanRequestDTO> loanRequests = new ArrayList<>();
+        List<BulkLoanItemResultDTO> loanResults = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            CreateLoanRequestDTO loanRequestDTO = chunk.get(i);
+            BulkLoanItemResultDTO result = new BulkLoanItemResultDTO(indexes.get(i), null, null, null);
+            results.add(result);
+
+            String violation = findViolation(loanRequestDTO);
+            if (violation != null) {
+                result.setErrorCode(ErrorMessage.INVALID_LOAN_REQUEST.getErrorCode());
+                result.setErrorMessage(violation);
+                continue;
+            }
+            Customer customer = customers.get(loanRequestDTO.getCustomerId());
+            long loanAmount = Money.toMinor(loanRequestDTO.getLoanAmount());
+            ErrorMessage error = null;
+            if (customer == null) {
+                error = ErrorMessage.CUSTOMER_NOT_FOUND;
+            } else if (customer.getUsedCreditLimit() + loanAmount > customer.getCreditLimit()) {
+                error = ErrorMessage.INSUFFICIENT_CREDIT_LIMIT;
+            } else if (!isValidInstallmentCount(loanRequestDTO.getNumberOfInstallment())) {
+                error = ErrorMessage.INVALID_NUMBER_OF_INSTALLMENTS;
+            }
+            if (error != null) {
+                result.setErrorCode(error.getErrorCode());
+                result.setErrorMessage(error.getMessage());
+                continue;
+            }
+
+            //reserve the limit in memory so later loans of the same customer in this chunk see it
+            customer.setUsedCreditLimit(customer.getUsedCreditLimit() + loanAmount);
+            customer.setLoanBookVersion(customer.getLoanBookVersion() + 1);
+            loanMetrics.creditReserved(Money.toMajor(loanAmount));
+
+            Loan loan = new Loan();
+            loan.setLoanAmount(loanAmount);
+            loan.setNumberOfInstallment(loanRequestDTO.getNumberOfInstallment());
+            loan.setCreateDate(LocalDate.now());
+            loan.setCustomer(customer);
+            loan.setIsPaid(false);
+            loans.add(loan);
+            loanRequests.add(loanRequestDTO);
+            loanResults.add(result);
+        }
 
+        if (loans.isEmpty()) {
+            return results;
+        }
 
-        List<LoanInstallment> installments = createInstallments(savedLoan, installmentAmount, loanRequestDTO.getNumberOfInstallment());
+        //ids come from the pooled sequences, so nothing is written before the flush below
+        loanRepository.saveAll(loans);
 
+        List<LoanInstallment> installments = new ArrayList<>();
+        for (int i = 0; i < loans.size(); i++) {
+            Loan loan = loans.get(i);
+            long totalAmount = InstallmentCalculator.totalRepayment(loan.getLoanAmount(), loanRequests.get(i).getInterestRate());
+            installments.addAll(createInstallments(loan, totalAmount, loan.getNumberOfInstallment()));
+            loanResults.get(i).setLoanId(loan.getId());
+        }
         loanInstallmentRepository.saveAll(installments);
+        portfolioService.installmentsCreated(installments);
 
-        return savedLoan;
+        //one flush writes limits, loans and installments in hibernate.jdbc.batch_size batches
+        //and clearing keeps the persistence context small between chunks
+        entityManager.flush();
+        entityManager.clear();
+        return results;
+    }
 
+    private String findViolation(CreateLoanRequestDTO loanRequestDTO) {
+        if (loanRequestDTO == null) {
+            return ErrorMessage.INVALID_LOAN_REQUEST.getMessage();
+        }
+        Set<ConstraintViolation<CreateLoanRequestDTO>> violations = validator.validate(loanRequestDTO);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
     }
 
     private boolean isValidInstallmentCount(Integer numberOfInstallment) {
         return numberOfInstallment == 6 || numberOfInstallment == 9 || numberOfInstallment == 12 || numberOfInstallment == 24;
     }
 
-    private List<LoanInstallment> createInstallments(Loan loan, double installmentAmount, int numberOfInstallments) {
-        List<LoanInstallment> installments = new ArrayList<>();
+    //package-private for the schedule benchmark
+    List<LoanInstallment> createInstallments(Loan loan, long totalAmount, int numberOfInstallments) {
+        List<LoanInstallment> installments = new ArrayList<>(numberOfInstallments);
         //Due Date of Installments should be first day of months
         LocalDate dueDate = LocalDate.now().plusMonths(1).withDayOfMonth(1);
         for (int i = 0; i < numberOfInstallments; i++) {
             LoanInstallment installment = new LoanInstallment();
             installment.setLoan(loan);
-            installment.setAmount(installmentAmount);
-            installment.setPaidAmount(0.0);
+            installment.setAmount(InstallmentCalculator.installmentAmount(totalAmount, numberOfInstallments, i));
+            installment.setPaidAmount(0);
             installment.setDueDate(dueDate);
             installment.setIsPaid(false);
+            installment.setIsOverdue(false);
 
             installments.add(installment);
             // dueDate ++ for next installment
@@ -103,125 +281,317 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
-    public List<LoanResponseDTO> listLoans(ListLoansRequestDTO listLoansRequestDTO) {
-        if(!customerRepository.findById(listLoansRequestDTO.getCustomerId()).isPresent()){
-            throw new CreditModuleException(ErrorMessage.CUSTOMER_NOT_FOUND);
-        }
-        List<Loan> loans = loanRepository.findByCustomerId(listLoansRequestDTO.getCustomerId());
-
-        if(ObjectUtils.isEmpty(loans)) {
-            throw new CreditModuleException(ErrorMessage.LOAN_NOT_FOUND);
-        }
-
-        if (listLoansRequestDTO.getNumberOfInstallment() != null) {
-            loans = loans.stream()
-                    .filter(loan -> loan.getNumberOfInstallment().equals(listLoansRequestDTO.getNumberOfInstallment()))
-                    .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public LoanPageResponseDTO listLoans(ListLoansRequestDTO listLoansRequestDTO) {
+        int pageSize = listLoansRequestDTO.getPageSize() != null ? listLoansRequestDTO.getPageSize() : defaultPageSize;
+        //one row more than the page tells whether there is a next page
+        List<LoanResponseDTO> loans = loanRepository.findLoanResponsePage(
+                listLoansRequestDTO.getCustomerId(),
+                listLoansRequestDTO.getNumberOfInstallment(),
+                listLoansRequestDTO.getIsPaid(),
+                listLoansRequestDTO.getAfterId(),
+                PageRequest.of(0, pageSize + 1));
+
+        //the customer is only looked up when there is nothing to return
+        if (loans.isEmpty() && listLoansRequestDTO.getAfterId() == null) {
+            if (!customerRepository.existsById(listLoansRequestDTO.getCustomerId())) {
+                throw new CreditModuleException(ErrorMessage.CUSTOMER_NOT_FOUND);
+            }
+            if (listLoansRequestDTO.getNumberOfInstallment() == null && listLoansRequestDTO.getIsPaid() == null) {
+                throw new CreditModuleException(ErrorMessage.LOAN_NOT_FOUND);
+            }
         }
 
-        if (listLoansRequestDTO.getIsPaid() != null) {
-            loans = loans.stream()
-                    .filter(loan -> loan.getIsPaid().equals(listLoansRequestDTO.getIsPaid()))
-                    .collect(Collectors.toList());
+        Long nextAfterId = null;
+        if (loans.size() > pageSize) {
+            loans = loans.subList(0, pageSize);
+            nextAfterId = loans.get(pageSize - 1).getId();
         }
-
-        return loans.stream()
-                .map(loan -> new LoanResponseDTO(
-                        loan.getId(),
-                        loan.getLoanAmount(),
-                        loan.getNumberOfInstallment(),
-                        loan.getCreateDate(),
-                        loan.getIsPaid()
-                ))
-                .collect(Collectors.toList());
+        //the query builds the DTOs, no entities are hydrated or snapshotted for dirty checking
+        return new LoanPageResponseDTO(loans, nextAfterId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<LoanInstallmentResponseDTO> listInstallments(Long loanId) {
-        List<LoanInstallment> installments = loanInstallmentRepository.findByLoanId(loanId);
+        List<LoanInstallmentResponseDTO> installments = loanInstallmentRepository.findResponsesByLoanId(loanId);
         if(ObjectUtils.isEmpty(installments)){
             throw new CreditModuleException(ErrorMessage.INSTALLMENT_NOT_FOUND);
         }
-        return installments.stream().map(
-                loanInstallment -> new LoanInstallmentResponseDTO(
-                        loanInstallment.getId(),
-                        loanInstallment.getAmount(),
-                        loanInstallment.getPaidAmount(),
-                        loanInstallment.getDueDate(),
-                        loanInstallment.getPaymentDate(),
-                        loanInstallment.getIsPaid())
-        ).collect(Collectors.toList());
+        return installments;
     }
 
+    //both entities are in the second-level cache, so an unchanged version is usually read without a query
     @Override
+    @Transactional(readOnly = true)
+    public Long installmentsVersion(Long loanId) {
+        return loanRepository.findById(loanId).map(Loan::getInstallmentsVersion).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long loanBookVersion(Long customerId) {
+        return customerRepository.findById(customerId).map(Customer::getLoanBookVersion).orElse(null);
+    }
+
+    @Override
+    @Transactional
     public LoanPaymentResponseDTO payLoan(PayLoanRequest payLoanRequestDTO) {
         LocalDate today = LocalDate.now();
         //check if loan exists
-        Loan loan = loanRepository.findById(payLoanRequestDTO.getLoanId()).orElseThrow(
+        Loan loan = loanRepository.findByIdForUpdate(payLoanRequestDTO.getLoanId()).orElseThrow(
                 () -> new CreditModuleException(ErrorMessage.LOAN_NOT_FOUND));
 
-        //check if payable in terms of month and isPaid
-        List<LoanInstallment> payableInstallments = loanInstallmentRepository.findByLoanId(payLoanRequestDTO.getLoanId())
-                .stream()
-                .filter(installment -> !installment.getIsPaid() && installment.getDueDate().isBefore(today.plusMonths(3)))
-                .toList();
+        //only unpaid installments due within 3 months, earliest first
+        List<LoanInstallment> payableInstallments = loanInstallmentRepository.findPayableInstallments(
+                payLoanRequestDTO.getLoanId(), today.plusMonths(3));
 
         if (payableInstallments.isEmpty()) {
             throw new CreditModuleException(ErrorMessage.NO_PAYABLE_INSTALLMENTS);
         }
 
-        double remainingAmount = payLoanRequestDTO.getPaymentAmount();
-        int paidCount = 0;
-        for (LoanInstallment installment : payableInstallments) {Double extra = 0.0;  //discount - penalty amount
-            long daysDifference = DAYS.between(today, installment.getDueDate());
-            if (today.isBefore(installment.getDueDate())) {
-                extra = - (installment.getAmount() * 0.001 * daysDifference);
-            }
-            else if (today.isAfter(installment.getDueDate())) {
-                extra = installment.getAmount() * 0.001 * daysDifference;  // Penalty
-            }
+        List<LoanInstallment> paidInstallments = new ArrayList<>(payableInstallments.size());
+        long remainingAmount = settleInstallments(payableInstallments,
+                Money.toMinor(payLoanRequestDTO.getPaymentAmount()), today, paidInstallments);
 
-            Double finalInstallmentAmount = installment.getAmount() + extra;
-            if (remainingAmount >= finalInstallmentAmount) {
-                installment.setPaidAmount(finalInstallmentAmount);
-                installment.setIsPaid(true);
-                installment.setPaymentDate(today);
-                //extra money from user
-                remainingAmount -= finalInstallmentAmount;
-                loanInstallmentRepository.save(installment);
-                paidCount++;
-            }
-        }
+        //settled rows are flushed as one JDBC batch before the count below
+        loanInstallmentRepository.saveAll(paidInstallments);
+        long unpaidInstallmentsCount = loanInstallmentRepository.countByLoanIdAndIsPaidFalse(loan.getId());
 
         //if all installments is paid, update
-        boolean allInstallmentsPaid = payableInstallments.stream().allMatch(LoanInstallment::getIsPaid);
-        if (allInstallmentsPaid) {
+        if (unpaidInstallmentsCount == 0) {
             loan.setIsPaid(true);
+        }
+        if (!paidInstallments.isEmpty()) {
+            //the installments changed, clients holding the old listInstallments ETag have to read them again
+            loan.setInstallmentsVersion(loan.getInstallmentsVersion() + 1);
             loanRepository.save(loan);
-            loan.getCustomer().setUsedCreditLimit(
-                    loan.getCustomer().getUsedCreditLimit() - loan.getLoanAmount()
-            );
-            customerRepository.save(loan.getCustomer());
         }
+        if (unpaidInstallmentsCount == 0) {
+            customerRepository.releaseCreditLimit(loan.getCustomer().getId(), loan.getLoanAmount());
+            loanMetrics.creditReleased(Money.toMajor(loan.getLoanAmount()));
+        }
+        //after the customer row, the same lock order as createLoan
+        portfolioService.installmentsPaid(paidInstallments);
 
         int totalInstallments = loan.getNumberOfInstallment();
-        Long unpaidInstallmentsCount =  loanInstallmentRepository.findByLoanId(loan.getId())
-                .stream()
-                .filter(installment -> !installment.getIsPaid())
-                .count();
 
         return new LoanPaymentResponseDTO(
                 loan.getId(),
-                loan.getLoanAmount(),
+                Money.toMajor(loan.getLoanAmount()),
                 totalInstallments,
-                paidCount,
+                paidInstallments.size(),
                 unpaidInstallmentsCount,
-                remainingAmount,
+                Money.toMajor(remainingAmount),
                 today
         );
     }
 
-}
+    //pays the installments in the given order, every one fully or not at all; returns the amount left over
+    private long settleInstallments(List<LoanInstallment> payableInstallments, long amount, LocalDate today,
+                                    List<LoanInstallment> paidInstallments) {
+        int paidBefore = paidInstallments.size();
+        //discount and penalty totals of this payment
+        long[] adjustments = new long[2];
+        long remainingAmount = settle(payableInstallments, LoanInstallment::getAmount, LoanInstallment::getDueDate,
+                amount, today, (installment, paidAmount, extra) -> {
+                    installment.setPaidAmount(paidAmount);
+                    installment.setIsPaid(true);
+                    installment.setPaymentDate(today);
+                    paidInstallments.add(installment);
+                    if (extra < 0) {
+                        adjustments[0] -= extra;
+                    } else {
+                        adjustments[1] += extra;
+                    }
+                });
+        loanMetrics.installmentsPaid(paidInstallments.size() - paidBefore);
+        loanMetrics.discount(Money.toMajor(adjustments[0]));
+        loanMetrics.penalty(Money.toMajor(adjustments[1]));
+        return remainingAmount;
+    }
 
+    //the payment rule shared by payLoan and quotePayment: installments are taken in the given order, each one
+    //adjusted by its discount or penalty for the payment date and settled fully or not at all
+    private static <T> long settle(List<T> installments, ToLongFunction<T> amountOf, Function<T, LocalDate> dueDateOf,
+                                   long amount, LocalDate paymentDate, SettledInstallment<T> settled) {
+        long remainingAmount = amount;
+        for (int i = 0; i < installments.size(); i++) {
+            T installment = installments.get(i);
+            long installmentAmount = amountOf.applyAsLong(installment);
+            //negative for an early payment discount, positive for a late payment penalty
+            long extra = InstallmentCalculator.adjustment(installmentAmount, dueDateOf.apply(installment), paymentDate);
+
+            long finalInstallmentAmount = installmentAmount + extra;
+            if (remainingAmount >= finalInstallmentAmount) {
+                //extra money from user
+                remainingAmount -= finalInstallmentAmount;
+                settled.accept(installment, finalInstallmentAmount, extra);
+            }
+        }
+        return remainingAmount;
+    }
 
+    private interface SettledInstallment<T> {
+        void accept(T installment, long paidAmount, long adjustment);
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PaymentQuoteResponseDTO quotePayment(PaymentQuoteRequestDTO paymentQuoteRequestDTO) {
+        Long loanId = paymentQuoteRequestDTO.getLoanId();
+        LocalDate paymentDate = paymentQuoteRequestDTO.getPaymentDate() != null
+                ? paymentQuoteRequestDTO.getPaymentDate() : LocalDate.now();
+        //the rows payLoan would lock and settle, read as a projection: nothing is managed, so nothing can be flushed
+        List<PayableInstallment> payableInstallments = loanInstallmentRepository.findPayableInstallmentRows(
+                loanId, paymentDate.plusMonths(3));
+        if (payableInstallments.isEmpty()) {
+            throw new CreditModuleException(loanRepository.existsById(loanId)
+                    ? ErrorMessage.NO_PAYABLE_INSTALLMENTS : ErrorMessage.LOAN_NOT_FOUND);
+        }
+
+        long payoffAmount = 0;
+        for (PayableInstallment installment : payableInstallments) {
+            payoffAmount += installment.amount()
+                    + InstallmentCalculator.adjustment(installment.amount(), installment.dueDate(), paymentDate);
+        }
+        long amount = paymentQuoteRequestDTO.getPaymentAmount() != null
+                ? Money.toMinor(paymentQuoteRequestDTO.getPaymentAmount()) : payoffAmount;
+
+        List<PaymentQuoteInstallmentDTO> settledInstallments = new ArrayList<>(payableInstallments.size());
+        long remainingAmount = settle(payableInstallments, PayableInstallment::amount, PayableInstallment::dueDate,
+                amount, paymentDate, (installment, paidAmount, extra) -> settledInstallments.add(
+                        new PaymentQuoteInstallmentDTO(
+                                installment.id(),
+                                installment.dueDate(),
+                                Money.toMajor(installment.amount()),
+                                Money.toMajor(extra),
+                                Money.toMajor(paidAmount))));
+        long unpaidInstallmentsCount = loanInstallmentRepository.countByLoanIdAndIsPaidFalse(loanId)
+                - settledInstallments.size();
+
+        return new PaymentQuoteResponseDTO(
+                loanId,
+                paymentDate,
+                Money.toMajor(amount),
+                Money.toMajor(payoffAmount),
+                settledInstallments,
+                unpaidInstallmentsCount,
+                Money.toMajor(remainingAmount));
+    }
+
+    @Override
+    @Transactional
+    public List<BulkPaymentItemResultDTO> payLoans(List<PayLoanRequest> payLoanRequests) {
+        LocalDate today = LocalDate.now();
+        LocalDate dueBefore = today.plusMonths(3);
+        //one locking query for all loans and one query for their unpaid installments instead of two per payment
+        Set<Long> loanIds = payLoanRequests.stream()
+                .map(PayLoanRequest::getLoanId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Loan> loans = loanRepository.findAllByIdForUpdate(loanIds).stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+        Map<Long, List<LoanInstallment>> unpaidInstallments = loans.isEmpty() ? Map.of()
+                : loanInstallmentRepository.findUnpaidByLoanIds(loans.keySet()).stream()
+                .collect(Collectors.groupingBy(installment -> installment.getLoan().getId()));
+
+        List<BulkPaymentItemResultDTO> results = new ArrayList<>(payLoanRequests.size());
+        List<LoanInstallment> paidInstallments = new ArrayList<>();
+        //loans with at least one installment paid, their installments version is bumped once
+        Map<Long, Loan> changedLoans = new LinkedHashMap<>();
+        //released per customer after all payments, in customer id order like createLoans locks them
+        Map<Long, Long> releasedCredit = new TreeMap<>();
+        //payments of the same loan are applied in request order, each one sees what the previous ones paid
+        for (int index = 0; index < payLoanRequests.size(); index++) {
+            PayLoanRequest payLoanRequest = payLoanRequests.get(index);
+            Loan loan = loans.get(payLoanRequest.getLoanId());
+            if (loan == null) {
+                results.add(failedPayment(index, ErrorMessage.LOAN_NOT_FOUND));
+                continue;
+            }
+            List<LoanInstallment> unpaid = unpaidInstallments.getOrDefault(loan.getId(), List.of());
+            List<LoanInstallment> payableInstallments = unpaid.stream()
+                    .filter(installment -> !installment.getIsPaid() && installment.getDueDate().isBefore(dueBefore))
+                    .collect(Collectors.toList());
+            if (payableInstallments.isEmpty()) {
+                results.add(failedPayment(index, ErrorMessage.NO_PAYABLE_INSTALLMENTS));
+                continue;
+            }
+
+            int paidBefore = paidInstallments.size();
+            long remainingAmount = settleInstallments(payableInstallments,
+                    Money.toMinor(payLoanRequest.getPaymentAmount()), today, paidInstallments);
+            long unpaidInstallmentsCount = unpaid.stream().filter(installment -> !installment.getIsPaid()).count();
+            if (paidInstallments.size() > paidBefore) {
+                changedLoans.putIfAbsent(loan.getId(), loan);
+            }
+            if (unpaidInstallmentsCount == 0) {
+                loan.setIsPaid(true);
+                releasedCredit.merge(loan.getCustomer().getId(), loan.getLoanAmount(), Long::sum);
+            }
+            results.add(new BulkPaymentItemResultDTO(index, new LoanPaymentResponseDTO(
+                    loan.getId(),
+                    Money.toMajor(loan.getLoanAmount()),
+                    loan.getNumberOfInstallment(),
+                    paidInstallments.size() - paidBefore,
+                    unpaidInstallmentsCount,
+                    Money.toMajor(remainingAmount),
+                    today), null, null));
+        }
+
+        loanInstallmentRepository.saveAll(paidInstallments);
+        changedLoans.values().forEach(loan -> loan.setInstallmentsVersion(loan.getInstallmentsVersion() + 1));
+        loanRepository.saveAll(changedLoans.values());
+        releasedCredit.forEach((customerId, amount) -> {
+            customerRepository.releaseCreditLimit(customerId, amount);
+            loanMetrics.creditReleased(Money.toMajor(amount));
+        });
+        portfolioService.installmentsPaid(paidInstallments);
+        return results;
+    }
+
+    private static BulkPaymentItemResultDTO failedPayment(int index, ErrorMessage error) {
+        return new BulkPaymentItemResultDTO(index, null, error.getErrorCode(), error.getMessage());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportLoans(Long customerId, Consumer<LoanExportDTO> loanConsumer) {
+        try (Stream<LoanInstallment> installments = loanInstallmentRepository.streamByCustomerId(customerId)) {
+            LoanExportDTO current = null;
+            Iterator<LoanInstallment> iterator = installments.iterator();
+            while (iterator.hasNext()) {
+                LoanInstallment installment = iterator.next();
+                Loan loan = installment.getLoan();
+                //rows come ordered by loan, a new loan id means the previous loan is complete
+                if (current == null || !current.getId().equals(loan.getId())) {
+                    if (current != null) {
+                        loanConsumer.accept(current);
+                    }
+                    current = new LoanExportDTO(
+                            loan.getId(),
+                            Money.toMajor(loan.getLoanAmount()),
+                            loan.getNumberOfInstallment(),
+                            loan.getCreateDate(),
+                            loan.getIsPaid(),
+                            new ArrayList<>(loan.getNumberOfInstallment()));
+                }
+                current.getInstallments().add(new LoanInstallmentResponseDTO(
+                        installment.getId(),
+                        Money.toMajor(installment.getAmount()),
+                        Money.toMajor(installment.getPaidAmount()),
+                        installment.getDueDate(),
+                        installment.getPaymentDate(),
+                        installment.getIsPaid()));
+                //written rows are not needed anymore, keeps the persistence context from growing with the book
+                entityManager.detach(installment);
+                entityManager.detach(loan);
+            }
+            if (current != null) {
+                loanConsumer.accept(current);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.response.BulkPaymentItemResultDTO;
+import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
+import com.example.creditmodule.dto.response.PaymentImportResultDTO;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.enums.PaymentFileFormat;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.importer.PaymentFileParser;
+import com.example.creditmodule.metrics.PaymentImportMetrics;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.service.LoanService;
+import com.example.creditmodule.service.PaymentImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pays the rows of a payment file from {@code app.payment.import.directory}. Rows are parsed in place
+ * from the mapped file and collected into chunks of {@code app.payment.import.chunk-size}; every chunk
+ * is paid by {@link LoanService#payLoans} in one transaction per partition, which loads the loans and
+ * installments of the whole chunk at once and applies the payLoan rules per row. The outcome of every row is written
+ * to {@code <file>.result.csv} in {@code app.payment.import.result-directory}.
+ */
+@Slf4j
+@Service
+public class PaymentImportServiceImpl implements PaymentImportService {
+
+    static final String RESULT_HEADER = "line,loanId,paymentAmount,status,paidInstallments,unpaidInstallments,"
+            + "remainingAmount,errorCode,errorMessage";
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private PaymentImportMetrics paymentImportMetrics;
+
+    @Autowired
+    private PartitionRouter partitionRouter;
+
+    @Value("${app.payment.import.directory:import}")
+    private String importDirectory;
+
+    @Value("${app.payment.import.result-directory:import/results}")
+    private String resultDirectory;
+
+    @Value("${app.payment.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Override
+    public PaymentImportResultDTO importFile(String fileName, PaymentFileFormat format) {
+        //only files inside the import directory can be read
+        Path inbox = Paths.get(importDirectory).toAbsolutePath().normalize();
+        Path file = inbox.resolve(fileName).normalize();
+        if (!file.startsWith(inbox) || !Files.isRegularFile(file)) {
+            throw new CreditModuleException(ErrorMessage.IMPORT_FILE_NOT_FOUND);
+        }
+        Path results = Paths.get(resultDirectory).toAbsolutePath().normalize();
+        Path resultFile = results.resolve(file.getFileName() + ".result.csv");
+
+        long start = System.nanoTime();
+        ImportChunk chunk;
+        try {
+            Files.createDirectories(results);
+            try (BufferedWriter writer = Files.newBufferedWriter(resultFile)) {
+                writer.write(RESULT_HEADER);
+                writer.newLine();
+                chunk = new ImportChunk(Math.max(1, chunkSize), writer);
+                PaymentFileParser.parse(file, format, chunk);
+                chunk.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long durationMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long totalRows = chunk.paidRows + chunk.rejectedRows;
+        log.info("Imported {}: {} rows, {} paid, {} rejected in {} ms",
+                fileName, totalRows, chunk.paidRows, chunk.rejectedRows, durationMillis);
+        return new PaymentImportResultDTO(fileName, resultFile.getFileName().toString(), totalRows,
+                chunk.paidRows, chunk.rejectedRows, durationMillis, totalRows * 1000 / durationMillis);
+    }
+
+    //rows of the file in line order; a row has either an amount or a reject reason from the parser
+    private class ImportChunk implements PaymentFileParser.RowHandler {
+
+        private final BufferedWriter writer;
+        private final long[] lineNumbers;
+        private final long[] loanIds;
+        private final long[] amounts;
+        private final String[] rejectReasons;
+        private int size;
+        private long paidRows;
+        private long rejectedRows;
+
+        ImportChunk(int capacity, BufferedWriter writer) {
+            this.writer = writer;
+            lineNumbers = new long[capacity];
+            loanIds = new long[capacity];
+            amounts = new long[capacity];
+            rejectReasons = new String[capacity];
+        }
+
+        @Override
+        public void row(long lineNumber, long loanId, long amount) {
+            add(lineNumber, loanId, amount, null);
+        }
+
+        @Override
+        public void reject(long lineNumber, String reason) {
+            add(lineNumber, -1, -1, reason);
+        }
+
+        private void add(long lineNumber, long loanId, long amount, String rejectReason) {
+            lineNumbers[size] = lineNumber;
+            loanIds[size] = loanId;
+            amounts[size] = amount;
+            rejectReasons[size] = rejectReason;
+            if (++size == lineNumbers.length) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (size == 0) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<PayLoanRequest> requests = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (rejectReasons[i] == null) {
+                    requests.add(new PayLoanRequest(loanIds[i], Money.toMajor(amounts[i])));
+                }
+            }
+            BulkPaymentItemResultDTO[] paymentResults = pay(requests);
+
+            int paid = 0;
+            int rejected = 0;
+            int request = 0;
+            try {
+                for (int i = 0; i < size; i++) {
+                    if (rejectReasons[i] != null) {
+                        writeRejected(i, ErrorMessage.INVALID_PAYMENT_ROW.getErrorCode(), rejectReasons[i]);
+                        rejected++;
+                        continue;
+                    }
+                    BulkPaymentItemResultDTO result = paymentResults[request];
+                    request++;
+                    if (result == null) {
+                        writeRejected(i, ErrorMessage.PAYMENT_CHUNK_FAILED.getErrorCode(),
+                                ErrorMessage.PAYMENT_CHUNK_FAILED.getMessage());
+                        rejected++;
+                    } else if (result.getPayment() == null) {
+                        writeRejected(i, result.getErrorCode(), result.getErrorMessage());
+                        rejected++;
+                    } else {
+                        writePaid(i, result.getPayment());
+                        paid++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            paidRows += paid;
+            rejectedRows += rejected;
+            paymentImportMetrics.chunkProcessed(paid, rejected, System.nanoTime() - start);
+            size = 0;
+        }
+
+        //the rows of a partition are paid there in one transaction, a rolled back partition leaves its results null
+        private BulkPaymentItemResultDTO[] pay(List<PayLoanRequest> requests) {
+            BulkPaymentItemResultDTO[] results = new BulkPaymentItemResultDTO[requests.size()];
+            Map<Integer, List<Integer>> indexesByPartition = partitionRouter.indexesByPartition(requests, PayLoanRequest::getLoanId);
+            for (Map.Entry<Integer, List<Integer>> partitionIndexes : indexesByPartition.entrySet()) {
+                List<Integer> indexes = partitionIndexes.getValue();
+                List<PayLoanRequest> partitionRequests = indexes.stream().map(requests::get).toList();
+                try {
+                    List<BulkPaymentItemResultDTO> partitionResults = partitionRouter.callIn(partitionIndexes.getKey(),
+                            () -> loanService.payLoans(partitionRequests));
+                    for (int i = 0; i < indexes.size(); i++) {
+                        results[indexes.get(i)] = partitionResults.get(i);
+                        results[indexes.get(i)].setIndex(indexes.get(i));
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Payment chunk ending at line {} was rolled back in partition {}",
+                            lineNumbers[size - 1], partitionIndexes.getKey(), e);
+                }
+            }
+            return results;
+        }
+
+        private void writePaid(int i, LoanPaymentResponseDTO payment) throws IOException {
+            writer.write(lineNumbers[i] + "," + loanIds[i] + "," + amount(amounts[i]) + ",PAID,"
+                    + payment.getPaidInstallments() + "," + payment.getUnpaidInstallments() + ","
+                    + amount(Money.toMinor(payment.getRemainingAmount())) + ",,");
+            writer.newLine();
+        }
+
+        private void writeRejected(int i, Integer errorCode, String errorMessage) throws IOException {
+            String loanId = loanIds[i] < 0 ? "" : String.valueOf(loanIds[i]);
+            String paymentAmount = amounts[i] < 0 ? "" : amount(amounts[i]);
+            writer.write(lineNumbers[i] + "," + loanId + "," + paymentAmount + ",REJECTED,,,," + errorCode
+                    + ",\"" + errorMessage.replace("\"", "\"\"") + "\"");
+            writer.newLine();
+        }
+    }
+
+    private static String amount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, Money.SCALE).toPlainString();
+    }
+}
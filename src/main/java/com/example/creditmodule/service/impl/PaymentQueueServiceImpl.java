@@ -0,0 +1,241 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.config.WorkerThreads;
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.response.BulkPaymentItemResultDTO;
+import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
+import com.example.creditmodule.dto.response.PaymentTicketDTO;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.enums.PaymentStatus;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.exception.PaymentQueueFullException;
+import com.example.creditmodule.metrics.PaymentQueueMetrics;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.service.LoanService;
+import com.example.creditmodule.service.PaymentQueueService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts payments into bounded in-memory queues and pays them on worker threads. Payments are routed
+ * to a worker by loan id, so the payments of one loan are paid in submission order and two workers
+ * never wait for the same loan lock. A worker takes up to {@code app.payment.queue.batch-size} payments
+ * at a time and pays them with {@link LoanService#payLoans} in one transaction per partition, so the
+ * month-start spike of many loans commits once per batch instead of once per payment. Rejected
+ * payments are reported per ticket; if the transaction itself fails, the payments of that partition
+ * are paid one by one.
+ * <p>
+ * Queued payments and tickets live in memory: tickets expire after {@code app.payment.queue.ticket-ttl},
+ * payments still queued when the application stops are paid before shutdown completes.
+ */
+@Slf4j
+@Service
+public class PaymentQueueServiceImpl implements PaymentQueueService {
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private PaymentQueueMetrics paymentQueueMetrics;
+
+    @Autowired
+    private PartitionRouter partitionRouter;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.payment.queue.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.payment.queue.workers:4}")
+    private int workers;
+
+    @Value("${app.payment.queue.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.payment.queue.ticket-ttl:1h}")
+    private Duration ticketTtl;
+
+    @Value("${app.payment.queue.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    private List<BlockingQueue<QueuedPayment>> queues;
+    private Cache<String, PaymentTicketDTO> tickets;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    private record QueuedPayment(String ticketId, PayLoanRequest request, LocalDateTime submittedAt) {
+    }
+
+    @PostConstruct
+    void start() {
+        int workerCount = Math.max(1, workers);
+        //every worker owns one queue, together they hold at most app.payment.queue.capacity payments
+        int queueCapacity = Math.max(1, capacity / workerCount);
+        queues = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        tickets = Caffeine.newBuilder().expireAfterWrite(ticketTtl).build();
+        paymentQueueMetrics.monitor(queues);
+
+        running = true;
+        executor = Executors.newFixedThreadPool(workerCount, workerThreads.factory("payment-queue-"));
+        for (BlockingQueue<QueuedPayment> queue : queues) {
+            executor.execute(() -> drain(queue));
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        //workers finish what is queued and exit
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Payment queue did not drain within {}, {} payments were not paid",
+                    shutdownTimeout, queues.stream().mapToInt(BlockingQueue::size).sum());
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public PaymentTicketDTO submit(PayLoanRequest payLoanRequest) {
+        if (!running) {
+            throw new PaymentQueueFullException();
+        }
+        QueuedPayment payment = new QueuedPayment(UUID.randomUUID().toString(), payLoanRequest, LocalDateTime.now());
+        PaymentTicketDTO ticket = new PaymentTicketDTO(payment.ticketId(), PaymentStatus.QUEUED,
+                payLoanRequest.getLoanId(), payment.submittedAt(), null, null, null, null);
+        //the ticket is stored first so a fast worker always finds it
+        tickets.put(ticket.getTicketId(), ticket);
+        if (!queueOf(payLoanRequest.getLoanId()).offer(payment)) {
+            tickets.invalidate(ticket.getTicketId());
+            paymentQueueMetrics.rejected();
+            throw new PaymentQueueFullException();
+        }
+        return ticket;
+    }
+
+    @Override
+    public PaymentTicketDTO getTicket(String ticketId) {
+        PaymentTicketDTO ticket = tickets.getIfPresent(ticketId);
+        if (ticket == null) {
+            throw new CreditModuleException(ErrorMessage.PAYMENT_TICKET_NOT_FOUND);
+        }
+        return ticket;
+    }
+
+    private BlockingQueue<QueuedPayment> queueOf(Long loanId) {
+        return queues.get(Math.floorMod(Long.hashCode(loanId), queues.size()));
+    }
+
+    private void drain(BlockingQueue<QueuedPayment> queue) {
+        List<QueuedPayment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedPayment first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, Math.max(0, batchSize - 1));
+                payBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                //a worker must survive anything, the payments of the batch that got no result are reported as failed
+                log.error("Payment batch failed", e);
+                failQueued(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void payBatch(List<QueuedPayment> batch) {
+        Map<Integer, List<Integer>> indexesByPartition = partitionRouter.indexesByPartition(batch,
+                payment -> payment.request().getLoanId());
+        for (Map.Entry<Integer, List<Integer>> partitionIndexes : indexesByPartition.entrySet()) {
+            payPartition(partitionIndexes.getKey(), partitionIndexes.getValue().stream().map(batch::get).toList());
+        }
+    }
+
+    //payLoans applies the payments of one loan in submission order and reports rejections per payment
+    private void payPartition(int partition, List<QueuedPayment> payments) {
+        long start = System.nanoTime();
+        List<PayLoanRequest> requests = payments.stream().map(QueuedPayment::request).toList();
+        List<BulkPaymentItemResultDTO> results;
+        try {
+            results = partitionRouter.callIn(partition, () -> loanService.payLoans(requests));
+        } catch (RuntimeException e) {
+            if (payments.size() == 1 && e instanceof CreditModuleException rejection) {
+                //a business rejection of the only payment is final, paying it again gives the same answer
+                fail(payments.get(0), rejection.getErrorCode(), rejection.getErrorMessage());
+                return;
+            }
+            //the whole partition was rolled back, every payment gets its own transaction and its own result
+            log.warn("Queued payments of partition {} were rolled back, paying them one by one", partition, e);
+            payments.forEach(this::payAlone);
+            return;
+        }
+        paymentQueueMetrics.batchCommitted(payments.size(), System.nanoTime() - start);
+        for (int i = 0; i < payments.size(); i++) {
+            BulkPaymentItemResultDTO result = results.get(i);
+            if (result.getPayment() != null) {
+                complete(payments.get(i), result.getPayment());
+            } else {
+                fail(payments.get(i), result.getErrorCode(), result.getErrorMessage());
+            }
+        }
+    }
+
+    private void payAlone(QueuedPayment payment) {
+        try {
+            complete(payment, partitionRouter.callInPartitionOf(payment.request().getLoanId(),
+                    () -> loanService.payLoan(payment.request())));
+        } catch (CreditModuleException e) {
+            fail(payment, e.getErrorCode(), e.getErrorMessage());
+        } catch (RuntimeException e) {
+            log.error("Queued payment {} failed", payment.ticketId(), e);
+            fail(payment, null, e.getMessage());
+        }
+    }
+
+    private void failQueued(List<QueuedPayment> batch, RuntimeException e) {
+        for (QueuedPayment payment : batch) {
+            PaymentTicketDTO ticket = tickets.getIfPresent(payment.ticketId());
+            if (ticket != null && ticket.getStatus() == PaymentStatus.QUEUED) {
+                fail(payment, null, e.getMessage());
+            }
+        }
+    }
+
+    private void complete(QueuedPayment payment, LoanPaymentResponseDTO response) {
+        tickets.put(payment.ticketId(), new PaymentTicketDTO(payment.ticketId(), PaymentStatus.COMPLETED,
+                payment.request().getLoanId(), payment.submittedAt(), LocalDateTime.now(), response, null, null));
+    }
+
+    private void fail(QueuedPayment payment, Integer errorCode, String errorMessage) {
+        tickets.put(payment.ticketId(), new PaymentTicketDTO(payment.ticketId(), PaymentStatus.FAILED,
+                payment.request().getLoanId(), payment.submittedAt(), LocalDateTime.now(), null, errorCode, errorMessage));
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.dto.response.PortfolioRebuildResultDTO;
+import com.example.creditmodule.dto.response.PortfolioSummaryDTO;
+import com.example.creditmodule.entity.LoanInstallment;
+import com.example.creditmodule.entity.PortfolioBucket;
+import com.example.creditmodule.entity.PortfolioBucketId;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.repository.CustomerRepository;
+import com.example.creditmodule.repository.LoanInstallmentRepository;
+import com.example.creditmodule.repository.PortfolioBucketRepository;
+import com.example.creditmodule.service.PortfolioService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+@Timed(value = "creditmodule.service", description = "Service method latency")
+public class PortfolioServiceImpl implements PortfolioService {
+
+    @Autowired
+    private PortfolioBucketRepository portfolioBucketRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PartitionRouter partitionRouter;
+
+    @Value("${app.portfolio.rebuild.chunk-size:500}")
+    private int rebuildChunkSize;
+
+    //runs in the transaction of the caller, the buckets commit or roll back with the loan
+    @Override
+    public void installmentsCreated(List<LoanInstallment> installments) {
+        portfolioBucketRepository.addToBuckets(toDeltas(installments, 1));
+    }
+
+    @Override
+    public void installmentsPaid(List<LoanInstallment> installments) {
+        portfolioBucketRepository.addToBuckets(toDeltas(installments, -1));
+    }
+
+    //one delta per customer and due date, the repository adds them to the portfolio totals as well
+    private Collection<PortfolioBucket> toDeltas(List<LoanInstallment> installments, int sign) {
+        Map<PortfolioBucketId, PortfolioBucket> deltas = new HashMap<>();
+        for (LoanInstallment installment : installments) {
+            PortfolioBucket delta = deltas.computeIfAbsent(
+                    new PortfolioBucketId(installment.getLoan().getCustomer().getId(), installment.getDueDate()),
+                    id -> new PortfolioBucket(id.getCustomerId(), id.getDueDate(), 0, 0));
+            delta.setUnpaidAmount(delta.getUnpaidAmount() + sign * installment.getAmount());
+            delta.setUnpaidCount(delta.getUnpaidCount() + sign);
+        }
+        return deltas.values();
+    }
+
+    @Override
+    public PortfolioSummaryDTO getSummary(Long customerId) {
+        //at most one bucket per month of the longest schedule, the installments are not read
+        List<PortfolioBucket> buckets;
+        if (customerId != null) {
+            buckets = partitionRouter.callInPartitionOf(customerId, () -> customerBuckets(customerId));
+        } else {
+            //every partition holds the totals of its own customers in a few stripes per due date, added up below
+            buckets = partitionRouter.scatter(partition -> portfolioBucketRepository.sumTotals())
+                    .stream()
+                    .flatMap(List::stream)
+                    .toList();
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate nextMonthStart = monthStart.plusMonths(1);
+        long outstandingAmount = 0;
+        long overdueAmount = 0;
+        long dueThisMonthAmount = 0;
+        long unpaidInstallments = 0;
+        for (PortfolioBucket bucket : buckets) {
+            outstandingAmount += bucket.getUnpaidAmount();
+            unpaidInstallments += bucket.getUnpaidCount();
+            if (bucket.getDueDate().isBefore(today)) {
+                overdueAmount += bucket.getUnpaidAmount();
+            }
+            if (!bucket.getDueDate().isBefore(monthStart) && bucket.getDueDate().isBefore(nextMonthStart)) {
+                dueThisMonthAmount += bucket.getUnpaidAmount();
+            }
+        }
+        return new PortfolioSummaryDTO(
+                customerId,
+                Money.toMajor(outstandingAmount),
+                Money.toMajor(overdueAmount),
+                Money.toMajor(dueThisMonthAmount),
+                unpaidInstallments,
+                today);
+    }
+
+    private List<PortfolioBucket> customerBuckets(Long customerId) {
+        List<PortfolioBucket> buckets = portfolioBucketRepository.findByCustomerId(customerId);
+        if (buckets.isEmpty() && !customerRepository.existsById(customerId)) {
+            throw new CreditModuleException(ErrorMessage.CUSTOMER_NOT_FOUND);
+        }
+        return buckets;
+    }
+
+    //the partitions are rebuilt at the same time, each one checks its customers and its totals
+    @Override
+    public PortfolioRebuildResultDTO rebuild() {
+        List<int[]> results = partitionRouter.scatter(partition -> rebuildPartition());
+        return new PortfolioRebuildResultDTO(
+                results.stream().mapToInt(result -> result[0]).sum(),
+                results.stream().mapToInt(result -> result[1]).sum(),
+                results.stream().mapToInt(result -> result[2]).sum());
+    }
+
+    //returns the number of checked customers, of checked buckets and of repaired buckets
+    private int[] rebuildPartition() {
+        int chunkSize = Math.max(1, rebuildChunkSize);
+        int customersChecked = 0;
+        int bucketsChecked = 0;
+        int bucketsRepaired = 0;
+
+        //every chunk of customers is verified in its own transaction
+        Long afterId = 0L;
+        List<Long> customerIds = customerRepository.findIdsAfter(afterId, PageRequest.of(0, chunkSize));
+        while (!customerIds.isEmpty()) {
+            List<Long> chunk = customerIds;
+            int[] chunkResult = transactionTemplate.execute(status -> repairBuckets(chunk,
+                    () -> loanInstallmentRepository.sumUnpaidByCustomerIds(chunk)));
+            customersChecked += chunk.size();
+            bucketsChecked += chunkResult[0];
+            bucketsRepaired += chunkResult[1];
+
+            afterId = chunk.get(chunk.size() - 1);
+            customerIds = customerRepository.findIdsAfter(afterId, PageRequest.of(0, chunkSize));
+        }
+
+        int[] totalsResult = transactionTemplate.execute(status -> repairTotals());
+        bucketsChecked += totalsResult[0];
+        bucketsRepaired += totalsResult[1];
+        return new int[]{customersChecked, bucketsChecked, bucketsRepaired};
+    }
+
+    //returns the number of checked and of repaired due dates; the stripes are locked before the installments are
+    //read and the difference of a due date is added to one stripe
+    private int[] repairTotals() {
+        Map<LocalDate, PortfolioBucket> stored = portfolioBucketRepository.sumTotalsForUpdate()
+                .stream()
+                .collect(Collectors.toMap(PortfolioBucket::getDueDate, Function.identity()));
+        List<PortfolioBucket> expected = loanInstallmentRepository.sumUnpaidOfAllCustomers();
+
+        List<PortfolioBucket> corrections = new ArrayList<>();
+        for (PortfolioBucket expectedTotal : expected) {
+            PortfolioBucket storedTotal = stored.remove(expectedTotal.getDueDate());
+            long storedAmount = storedTotal == null ? 0 : storedTotal.getUnpaidAmount();
+            long storedCount = storedTotal == null ? 0 : storedTotal.getUnpaidCount();
+            if (expectedTotal.getUnpaidAmount() != storedAmount || expectedTotal.getUnpaidCount() != storedCount) {
+                corrections.add(new PortfolioBucket(PortfolioBucket.ALL_CUSTOMERS, expectedTotal.getDueDate(),
+                        expectedTotal.getUnpaidAmount() - storedAmount, expectedTotal.getUnpaidCount() - storedCount));
+            }
+        }
+        //what is left has no unpaid installments anymore
+        for (PortfolioBucket storedTotal : stored.values()) {
+            if (storedTotal.getUnpaidAmount() != 0 || storedTotal.getUnpaidCount() != 0) {
+                corrections.add(new PortfolioBucket(PortfolioBucket.ALL_CUSTOMERS, storedTotal.getDueDate(),
+                        -storedTotal.getUnpaidAmount(), -storedTotal.getUnpaidCount()));
+            }
+        }
+        portfolioBucketRepository.addToTotals(corrections);
+        return new int[]{expected.size(), corrections.size()};
+    }
+
+    //returns the number of checked and of repaired buckets
+    private int[] repairBuckets(List<Long> customerIds, Supplier<List<PortfolioBucket>> expectedBuckets) {
+        //locked before the installments are read, writers of these buckets wait until the chunk commits
+        Map<PortfolioBucketId, PortfolioBucket> stored = portfolioBucketRepository.findByCustomerIdInForUpdate(customerIds)
+                .stream()
+                .collect(Collectors.toMap(bucket -> new PortfolioBucketId(bucket.getCustomerId(), bucket.getDueDate()),
+                        Function.identity()));
+        List<PortfolioBucket> expected = expectedBuckets.get();
+
+        //differences are added through the upsert of the writers: a bucket missing here may be created by a
+        //concurrent loan before this chunk commits, its delta and the repair then add up instead of colliding
+        List<PortfolioBucket> corrections = new ArrayList<>();
+        for (PortfolioBucket expectedBucket : expected) {
+            PortfolioBucket storedBucket = stored.remove(new PortfolioBucketId(expectedBucket.getCustomerId(), expectedBucket.getDueDate()));
+            if (storedBucket == null) {
+                corrections.add(expectedBucket);
+            } else if (storedBucket.getUnpaidAmount() != expectedBucket.getUnpaidAmount()
+                    || storedBucket.getUnpaidCount() != expectedBucket.getUnpaidCount()) {
+                corrections.add(new PortfolioBucket(expectedBucket.getCustomerId(), expectedBucket.getDueDate(),
+                        expectedBucket.getUnpaidAmount() - storedBucket.getUnpaidAmount(),
+                        expectedBucket.getUnpaidCount() - storedBucket.getUnpaidCount()));
+            }
+        }
+        int repaired = corrections.size();
+        //the totals are checked on their own in repairTotals
+        portfolioBucketRepository.addToCustomerBuckets(corrections);
+        //what is left has no unpaid installments anymore, empty buckets are dropped as well
+        for (PortfolioBucket storedBucket : stored.values()) {
+            if (storedBucket.getUnpaidAmount() != 0 || storedBucket.getUnpaidCount() != 0) {
+                repaired++;
+            }
+        }
+        portfolioBucketRepository.deleteAll(stored.values());
+        return new int[]{expected.size(), repaired};
+    }
+}
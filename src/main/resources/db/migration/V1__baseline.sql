@@ -0,0 +1,57 @@
+-- schema as it was before migrations were introduced, generated from the entities
+create sequence customer_seq start with 1 increment by 50;
+create sequence loan_seq start with 1 increment by 50;
+create sequence loan_installment_seq start with 1 increment by 50;
+
+create table customer (
+    id bigint not null,
+    name varchar(255),
+    surname varchar(255),
+    credit_limit bigint not null,
+    used_credit_limit bigint not null,
+    primary key (id)
+);
+
+create table loan (
+    id bigint not null,
+    loan_amount bigint not null,
+    number_of_installment integer,
+    create_date date,
+    is_paid boolean,
+    customer_id bigint,
+    primary key (id),
+    constraint fk_loan_customer foreign key (customer_id) references customer (id)
+);
+
+create table loan_installment (
+    id bigint not null,
+    amount bigint not null,
+    paid_amount bigint not null,
+    due_date date,
+    payment_date date,
+    is_paid boolean,
+    accrued_penalty bigint not null,
+    penalty_accrued_on date,
+    is_overdue boolean,
+    loan_id bigint,
+    primary key (id),
+    constraint fk_loan_installment_loan foreign key (loan_id) references loan (id)
+);
+
+create table portfolio_bucket (
+    customer_id bigint not null,
+    due_date date not null,
+    unpaid_amount bigint not null,
+    unpaid_count bigint not null,
+    primary key (customer_id, due_date)
+);
+
+create table job_checkpoint (
+    job_name varchar(255) not null,
+    run_date date,
+    last_id bigint not null,
+    processed_count bigint not null,
+    completed boolean,
+    updated_at timestamp(6),
+    primary key (job_name)
+);
@@ -0,0 +1,8 @@
+-- loans of a customer, also ordered by id for the keyset pages of listLoans
+create index idx_loan_customer_id on loan (customer_id, id);
+
+-- installments of a loan, payable (unpaid, due before a date) and unpaid count of a loan
+create index idx_loan_installment_loan_paid_due on loan_installment (loan_id, is_paid, due_date);
+
+-- unpaid installments by due date for the penalty accrual job and the portfolio rebuild
+create index idx_loan_installment_paid_due on loan_installment (is_paid, due_date);
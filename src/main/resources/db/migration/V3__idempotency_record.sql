@@ -0,0 +1,10 @@
+-- responses of requests sent with an Idempotency-Key header, replayed when the key comes again
+create table idempotency_record (
+    idempotency_key varchar(300) not null,
+    request_hash varchar(64) not null,
+    response varchar(4000) not null,
+    created_at timestamp(6) not null,
+    primary key (idempotency_key)
+);
+
+create index idx_idempotency_record_created_at on idempotency_record (created_at);
@@ -0,0 +1,3 @@
+-- counters behind the ETags of listInstallments (per loan) and listLoans (per customer)
+alter table loan add column installments_version bigint default 0 not null;
+alter table customer add column loan_book_version bigint default 0 not null;
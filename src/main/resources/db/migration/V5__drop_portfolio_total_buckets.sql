@@ -0,0 +1,2 @@
+-- the portfolio totals are summed from the customer buckets on read, the shared total rows are no longer kept
+delete from portfolio_bucket where customer_id = 0;
@@ -0,0 +1,12 @@
+-- the whole portfolio per due date, split over a few stripes: a writer adds its delta to one stripe, so concurrent
+-- writers rarely wait for the same row, and the summary adds up stripes x due dates rows instead of every bucket
+create table portfolio_total (
+    stripe integer not null,
+    due_date date not null,
+    unpaid_amount bigint not null,
+    unpaid_count bigint not null,
+    primary key (stripe, due_date)
+);
+
+insert into portfolio_total (stripe, due_date, unpaid_amount, unpaid_count)
+select 0, due_date, sum(unpaid_amount), sum(unpaid_count) from portfolio_bucket group by due_date;
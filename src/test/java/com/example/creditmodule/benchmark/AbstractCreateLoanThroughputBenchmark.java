@@ -0,0 +1,69 @@
+package com.example.creditmodule.benchmark;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Measures how many rows per second {@code createLoan} writes. Run with {@code ./gradlew benchmark}
+ * and compare the batched and unbatched subclasses, or the same subclass across two builds.
+ * {@code -Dbenchmark.loans} and {@code -Dbenchmark.warmupLoans} change the number of loans.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+abstract class AbstractCreateLoanThroughputBenchmark {
+
+    private static final int WARMUP_LOANS = Integer.getInteger("benchmark.warmupLoans", 200);
+    private static final int MEASURED_LOANS = Integer.getInteger("benchmark.loans", 2000);
+    private static final int INSTALLMENTS = 24;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    protected abstract String mode();
+
+    @Test
+    void createLoanThroughput() {
+        Long customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("benchmark", "customer", 1_000_000_000_000.0, 0.0)).getId();
+        createLoans(customerId, WARMUP_LOANS);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+        createLoans(customerId, MEASURED_LOANS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        //one loan row and one row per installment
+        long rows = (long) MEASURED_LOANS * (INSTALLMENTS + 1);
+        System.out.printf("[%s] %d loans, %d rows in %.2f s: %.0f rows/sec, %d statements prepared%n",
+                mode(), MEASURED_LOANS, rows, seconds, rows / seconds, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(rows, statistics.getEntityInsertCount());
+    }
+
+    private void createLoans(Long customerId, int count) {
+        for (int i = 0; i < count; i++) {
+            CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+            request.setCustomerId(customerId);
+            request.setLoanAmount(1000.0);
+            request.setNumberOfInstallment(INSTALLMENTS);
+            request.setInterestRate(0.2);
+            loanService.createLoan(request);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.creditmodule.benchmark;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.dto.response.BulkLoanItemResultDTO;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the loan endpoints over HTTP with many concurrent clients and reports requests per second
+ * and latency percentiles. Run with {@code ./gradlew benchmark -PjavaVersion=21} and compare the
+ * platform and virtual thread subclasses. {@code -Dbenchmark.clients} and {@code -Dbenchmark.requests}
+ * change the load, {@code -Djdk.tracePinnedThreads=short} prints every pinned virtual thread.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+abstract class AbstractHttpLoadBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests", 50);
+    private static final int LOANS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    private final String authorization = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+    protected abstract String mode();
+
+    @Test
+    void loanEndpointThroughput() throws Exception {
+        Long customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("load", "customer", 1_000_000_000.0, 0.0)).getId();
+        List<Long> loanIds = createLoans(customerId);
+
+        //warm up the JIT and the connection pools before measuring
+        runClients(customerId, loanIds, CLIENTS / 4, REQUESTS_PER_CLIENT / 5);
+        long[] results = runClients(customerId, loanIds, CLIENTS, REQUESTS_PER_CLIENT);
+
+        double seconds = results[results.length - 1] / 1_000_000_000.0;
+        long[] latencies = Arrays.copyOf(results, results.length - 1);
+        Arrays.sort(latencies);
+        System.out.printf("[%s] %d requests from %d clients: %.0f req/sec, p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                mode(), latencies.length, CLIENTS, latencies.length / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    //returns the latency of every request, the last element is the wall clock time of the whole run
+    private long[] runClients(Long customerId, List<Long> loanIds, int clients, int requestsPerClient) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                long[] clientLatencies = new long[requestsPerClient];
+                for (int j = 0; j < requestsPerClient; j++) {
+                    long begin = System.nanoTime();
+                    HttpResponse<Void> response = httpClient.send(nextRequest(customerId, loanIds, j),
+                            HttpResponse.BodyHandlers.discarding());
+                    clientLatencies[j] = System.nanoTime() - begin;
+                    Assertions.assertEquals(200, response.statusCode());
+                }
+                return clientLatencies;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] latencies = new long[clients * requestsPerClient + 1];
+        int position = 0;
+        for (Future<long[]> future : futures) {
+            long[] clientLatencies = future.get(10, TimeUnit.MINUTES);
+            System.arraycopy(clientLatencies, 0, latencies, position, clientLatencies.length);
+            position += clientLatencies.length;
+        }
+        latencies[position] = System.nanoTime() - begin;
+        executor.shutdown();
+        return latencies;
+    }
+
+    //three installment reads for every page of loans
+    private HttpRequest nextRequest(Long customerId, List<Long> loanIds, int requestNumber) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().header("Authorization", authorization);
+        if (requestNumber % 4 == 0) {
+            String body = "{\"customerId\":" + customerId + ",\"pageSize\":20}";
+            return builder.uri(uri("api/loan/listLoans"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        Long loanId = loanIds.get(ThreadLocalRandom.current().nextInt(loanIds.size()));
+        return builder.uri(uri("api/loan/listInstallments?loanId=" + loanId)).GET().build();
+    }
+
+    private List<Long> createLoans(Long customerId) {
+        List<CreateLoanRequestDTO> requests = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+            request.setCustomerId(customerId);
+            request.setLoanAmount(1000.0);
+            request.setNumberOfInstallment(12);
+            request.setInterestRate(0.2);
+            requests.add(request);
+        }
+        return loanService.createLoans(requests).getResults().stream()
+                .map(BulkLoanItemResultDTO::getLoanId)
+                .toList();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/" + path);
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.creditmodule.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:benchmark-batched")
+class BatchedCreateLoanThroughputBenchmark extends AbstractCreateLoanThroughputBenchmark {
+
+    @Override
+    protected String mode() {
+        return "batched";
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.creditmodule.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Handles requests on Tomcat's default pool of 200 platform threads.
+ */
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:load-platform")
+class PlatformThreadHttpLoadBenchmark extends AbstractHttpLoadBenchmark {
+
+    @Override
+    protected String mode() {
+        return "platform threads";
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.creditmodule.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Writes every row with its own statement, JDBC batching off. Ids still come from the pooled sequences,
+ * so this measures batching alone and not IDENTITY generation, which would also read every id back per row.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:benchmark-unbatched",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=1"
+})
+class UnbatchedCreateLoanThroughputBenchmark extends AbstractCreateLoanThroughputBenchmark {
+
+    @Override
+    protected String mode() {
+        return "unbatched";
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.creditmodule.benchmark;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Handles every request on its own virtual thread, skipped unless the build runs on Java 21.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@ActiveProfiles("virtual-threads")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:load-virtual")
+class VirtualThreadHttpLoadBenchmark extends AbstractHttpLoadBenchmark {
+
+    @Override
+    protected String mode() {
+        return "virtual threads";
+    }
+}
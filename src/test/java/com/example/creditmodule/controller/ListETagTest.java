@@ -0,0 +1,117 @@
+package com.example.creditmodule.controller;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:listetag")
+class ListETagTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final String authorization = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+    private Long customerId;
+    private Long loanId;
+
+    @BeforeEach
+    void setUp() {
+        customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("etag", "customer", 10_000.0, 0.0)).getId();
+        loanId = loanService.createLoan(loanRequest()).getId();
+    }
+
+    @Test
+    void listInstallmentsShouldAnswer304UntilTheLoanIsPaid() throws Exception {
+        HttpResponse<String> first = send(installments(null));
+        String eTag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> unchanged = send(installments(eTag));
+        Assertions.assertEquals(304, unchanged.statusCode());
+        Assertions.assertEquals("", unchanged.body());
+
+        loanService.payLoan(new PayLoanRequest(loanId, 110.0));
+
+        HttpResponse<String> changed = send(installments(eTag));
+        Assertions.assertEquals(200, changed.statusCode());
+        Assertions.assertNotEquals(eTag, changed.headers().firstValue("ETag").orElseThrow());
+        Assertions.assertNotEquals(first.body(), changed.body());
+    }
+
+    @Test
+    void listLoansShouldAnswer304UntilALoanIsCreated() throws Exception {
+        HttpResponse<String> first = send(loans(10, null));
+        String eTag = first.headers().firstValue("ETag").orElseThrow();
+
+        Assertions.assertEquals(304, send(loans(10, eTag)).statusCode());
+        //another page size is another response
+        Assertions.assertEquals(200, send(loans(5, eTag)).statusCode());
+
+        loanService.createLoan(loanRequest());
+
+        HttpResponse<String> changed = send(loans(10, eTag));
+        Assertions.assertEquals(200, changed.statusCode());
+        Assertions.assertNotEquals(eTag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    private HttpRequest installments(String ifNoneMatch) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri("api/loan/listInstallments?loanId=" + loanId))
+                .header("Authorization", authorization)
+                .GET();
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest loans(int pageSize, String ifNoneMatch) {
+        String body = "{\"customerId\":" + customerId + ",\"pageSize\":" + pageSize + "}";
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri("api/loan/listLoans"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private CreateLoanRequestDTO loanRequest() {
+        CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+        request.setCustomerId(customerId);
+        request.setLoanAmount(600.0);
+        request.setNumberOfInstallment(6);
+        request.setInterestRate(0.1);
+        return request;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.creditmodule.controller;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:responseformat")
+class ResponseFormatTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final String authorization = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private Long customerId;
+    private Long loanId;
+
+    @BeforeEach
+    void setUp() {
+        customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("format", "customer", 1_000_000.0, 0.0)).getId();
+        for (int i = 0; i < 40; i++) {
+            CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+            request.setCustomerId(customerId);
+            request.setLoanAmount(1200.0);
+            request.setNumberOfInstallment(24);
+            request.setInterestRate(0.2);
+            loanId = loanService.createLoan(request).getId();
+        }
+    }
+
+    @Test
+    void listInstallmentsShouldBeEncodedAsRequestedByAcceptHeader() throws Exception {
+        HttpResponse<byte[]> json = send(installments("application/json"));
+        HttpResponse<byte[]> smile = send(installments("application/x-jackson-smile"));
+        HttpResponse<byte[]> cbor = send(installments("application/cbor"));
+
+        Assertions.assertEquals(Optional.of("application/json"), json.headers().firstValue("Content-Type"));
+        Assertions.assertEquals(Optional.of("application/x-jackson-smile"), smile.headers().firstValue("Content-Type"));
+        Assertions.assertEquals(Optional.of("application/cbor"), cbor.headers().firstValue("Content-Type"));
+
+        //same content, fewer bytes
+        JsonNode expected = jsonMapper.readTree(json.body());
+        Assertions.assertEquals(expected.toString(), new ObjectMapper(new SmileFactory()).readTree(smile.body()).toString());
+        Assertions.assertEquals(expected.toString(), new ObjectMapper(new CBORFactory()).readTree(cbor.body()).toString());
+        Assertions.assertTrue(smile.body().length < json.body().length);
+        Assertions.assertTrue(cbor.body().length < json.body().length);
+    }
+
+    @Test
+    void listLoansShouldBeGzippedAboveTheThreshold() throws Exception {
+        HttpResponse<byte[]> fullPage = send(loans(40));
+        HttpResponse<byte[]> smallPage = send(loans(1));
+
+        Assertions.assertEquals(Optional.of("gzip"), fullPage.headers().firstValue("Content-Encoding"));
+        Assertions.assertEquals(40, jsonMapper.readTree(gunzip(fullPage.body())).get("loans").size());
+        Assertions.assertEquals(Optional.empty(), smallPage.headers().firstValue("Content-Encoding"));
+        Assertions.assertEquals(1, jsonMapper.readTree(smallPage.body()).get("loans").size());
+    }
+
+    private HttpRequest installments(String accept) {
+        return HttpRequest.newBuilder(uri("api/loan/listInstallments?loanId=" + loanId))
+                .header("Authorization", authorization)
+                .header("Accept", accept)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest loans(int pageSize) {
+        String body = "{\"customerId\":" + customerId + ",\"pageSize\":" + pageSize + "}";
+        return HttpRequest.newBuilder(uri("api/loan/listLoans"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws Exception {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/" + path);
+    }
+}
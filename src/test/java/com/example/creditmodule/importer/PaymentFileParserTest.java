@@ -0,0 +1,100 @@
+package com.example.creditmodule.importer;
+
+import com.example.creditmodule.enums.PaymentFileFormat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class PaymentFileParserTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parse_shouldReadCsvRowsInMinorUnits() throws IOException {
+        Path file = write("loanId,paymentAmount\r\n1,250.50\r\n\r\n 2 , 100 \r\n3,0.5,reference\r\n4,1");
+
+        Rows rows = parse(file, PaymentFileFormat.CSV, PaymentFileParser.DEFAULT_WINDOW_SIZE);
+
+        Assertions.assertEquals(List.of("2:1:25050", "4:2:10000", "5:3:50", "6:4:100"), rows.rows);
+        Assertions.assertTrue(rows.rejects.isEmpty());
+    }
+
+    @Test
+    void parse_shouldRejectInvalidCsvRows() throws IOException {
+        Path file = write("1,12.345\nx1,10\n2,-5\n3\n4,0\n5,1e3\n");
+
+        Rows rows = parse(file, PaymentFileFormat.CSV, PaymentFileParser.DEFAULT_WINDOW_SIZE);
+
+        Assertions.assertTrue(rows.rows.isEmpty());
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), rows.rejects);
+    }
+
+    @Test
+    void parse_shouldReadLinesThatCrossWindowBoundaries() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            content.append(i).append(',').append(i).append(".01\n");
+            expected.add(i + ":" + i + ":" + (i * 100 + 1));
+        }
+        Path file = write(content.toString());
+
+        //a window holds only a few lines, most lines start in one mapping and end in the next
+        Rows rows = parse(file, PaymentFileFormat.CSV, 64);
+
+        Assertions.assertEquals(expected, rows.rows);
+    }
+
+    @Test
+    void parse_shouldFailWhenLineIsLongerThanWindow() throws IOException {
+        Path file = write("1,100.00,a-reference-that-does-not-fit\n");
+
+        Assertions.assertThrows(IOException.class, () -> parse(file, PaymentFileFormat.CSV, 16));
+    }
+
+    @Test
+    void parse_shouldReadFixedWidthRows() throws IOException {
+        Path file = write("0000000000000000042000000000025050\n"
+                + "                  7            100\n"
+                + "short\n");
+
+        Rows rows = parse(file, PaymentFileFormat.FIXED_WIDTH, PaymentFileParser.DEFAULT_WINDOW_SIZE);
+
+        Assertions.assertEquals(List.of("1:42:25050", "2:7:100"), rows.rows);
+        Assertions.assertEquals(List.of(3L), rows.rejects);
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("payments.txt"), content, StandardCharsets.UTF_8);
+    }
+
+    private static Rows parse(Path file, PaymentFileFormat format, int windowSize) throws IOException {
+        Rows rows = new Rows();
+        PaymentFileParser.parse(file, format, rows, windowSize);
+        return rows;
+    }
+
+    //rows as "line:loanId:amount", rejects as line numbers
+    private static class Rows implements PaymentFileParser.RowHandler {
+        private final List<String> rows = new ArrayList<>();
+        private final List<Long> rejects = new ArrayList<>();
+
+        @Override
+        public void row(long lineNumber, long loanId, long amount) {
+            rows.add(lineNumber + ":" + loanId + ":" + amount);
+        }
+
+        @Override
+        public void reject(long lineNumber, String reason) {
+            rejects.add(lineNumber);
+        }
+    }
+}
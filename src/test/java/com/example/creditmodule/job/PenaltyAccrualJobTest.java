@@ -0,0 +1,115 @@
+package com.example.creditmodule.job;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.entity.JobCheckpoint;
+import com.example.creditmodule.entity.LoanInstallment;
+import com.example.creditmodule.money.InstallmentCalculator;
+import com.example.creditmodule.repository.JobCheckpointRepository;
+import com.example.creditmodule.repository.LoanInstallmentRepository;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+//small chunks and two workers, so a run has several chunks split across both workers
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:penalty",
+        "app.penalty.accrual.cron=-",
+        "app.penalty.accrual.chunk-size=3",
+        "app.penalty.accrual.workers=2"
+})
+class PenaltyAccrualJobTest {
+
+    @Autowired
+    private PenaltyAccrualJob penaltyAccrualJob;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Test
+    void run_shouldAccruePenaltyOfOverdueInstallmentsOnly() {
+        LocalDate asOf = LocalDate.now();
+        List<LoanInstallment> installments = createLoanWithOverdueInstallments(4);
+        jobCheckpointRepository.deleteAll();
+
+        penaltyAccrualJob.run(asOf);
+
+        List<LoanInstallment> accrued = reload(installments);
+        for (int i = 0; i < accrued.size(); i++) {
+            LoanInstallment installment = accrued.get(i);
+            if (i < 4) {
+                Assertions.assertTrue(installment.getIsOverdue());
+                Assertions.assertEquals(asOf, installment.getPenaltyAccruedOn());
+                Assertions.assertEquals(InstallmentCalculator.adjustment(installment.getAmount(), installment.getDueDate(), asOf),
+                        installment.getAccruedPenalty());
+                Assertions.assertTrue(installment.getAccruedPenalty() > 0);
+            } else {
+                Assertions.assertFalse(installment.getIsOverdue());
+                Assertions.assertNull(installment.getPenaltyAccruedOn());
+            }
+        }
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(PenaltyAccrualJob.JOB_NAME).orElseThrow();
+        Assertions.assertTrue(checkpoint.getCompleted());
+        Assertions.assertEquals(asOf, checkpoint.getRunDate());
+    }
+
+    @Test
+    void run_shouldResumeAfterCheckpointOfUnfinishedRun() {
+        LocalDate asOf = LocalDate.now().plusDays(1);
+        List<LoanInstallment> installments = createLoanWithOverdueInstallments(4);
+        //a crashed run of the same day got as far as the second installment
+        jobCheckpointRepository.save(new JobCheckpoint(PenaltyAccrualJob.JOB_NAME, asOf,
+                installments.get(1).getId(), 2, false, LocalDateTime.now()));
+
+        penaltyAccrualJob.run(asOf);
+
+        List<LoanInstallment> accrued = reload(installments);
+        Assertions.assertNull(accrued.get(0).getPenaltyAccruedOn());
+        Assertions.assertNull(accrued.get(1).getPenaltyAccruedOn());
+        Assertions.assertEquals(asOf, accrued.get(2).getPenaltyAccruedOn());
+        Assertions.assertEquals(asOf, accrued.get(3).getPenaltyAccruedOn());
+        Assertions.assertTrue(jobCheckpointRepository.findById(PenaltyAccrualJob.JOB_NAME).orElseThrow().getCompleted());
+    }
+
+    //a 6 installment loan whose first overdueCount installments are already past due, ordered by id
+    private List<LoanInstallment> createLoanWithOverdueInstallments(int overdueCount) {
+        Long customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("overdue", "customer", 100_000.0, 0.0)).getId();
+        CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+        request.setCustomerId(customerId);
+        request.setLoanAmount(1000.0);
+        request.setNumberOfInstallment(6);
+        request.setInterestRate(0.2);
+        Long loanId = loanService.createLoan(request).getId();
+
+        List<LoanInstallment> installments = loanInstallmentRepository.findByLoanId(loanId);
+        installments.sort(Comparator.comparing(LoanInstallment::getId));
+        for (int i = 0; i < overdueCount; i++) {
+            installments.get(i).setDueDate(LocalDate.now().minusDays(10L * (overdueCount - i)));
+        }
+        return loanInstallmentRepository.saveAll(installments);
+    }
+
+    private List<LoanInstallment> reload(List<LoanInstallment> installments) {
+        return installments.stream()
+                .map(installment -> loanInstallmentRepository.findById(installment.getId()).orElseThrow())
+                .toList();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.creditmodule.load;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and failures of one operation. Every client thread records into its own instance,
+ * the instances are merged once the run is over, so recording needs no synchronization.
+ */
+class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long clientErrors;
+    private long serverErrors;
+    private long failures;
+
+    //status is the HTTP status code, or -1 when no response came back
+    void record(long latencyNanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (status < 0) {
+            failures++;
+        } else if (status >= 500) {
+            serverErrors++;
+        } else if (status >= 400) {
+            clientErrors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        clientErrors += other.clientErrors;
+        serverErrors += other.serverErrors;
+        failures += other.failures;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long clientErrors() {
+        return clientErrors;
+    }
+
+    long serverErrors() {
+        return serverErrors;
+    }
+
+    long failures() {
+        return failures;
+    }
+
+    long[] sortedLatencies() {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.creditmodule.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The calls the load test sends, named like the endpoints of {@code LoanController}.
+ */
+enum LoadOperation {
+    CREATE_LOAN("createLoan"),
+    LIST_LOANS("listLoans"),
+    LIST_INSTALLMENTS("listInstallments"),
+    PAY_LOAN("payLoan");
+
+    private final String endpoint;
+
+    LoadOperation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    //"createLoan=10,listLoans=30,listInstallments=40,payLoan=20", operations that are left out are not sent
+    static Map<LoadOperation, Integer> parseMix(String mix) {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid load mix entry: " + entry);
+            }
+            weights.put(fromEndpoint(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Load mix has no positive weight: " + mix);
+        }
+        return weights;
+    }
+
+    private static LoadOperation fromEndpoint(String endpoint) {
+        for (LoadOperation operation : values()) {
+            if (operation.endpoint.equals(endpoint)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation in load mix: " + endpoint);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.creditmodule.load;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the result of a load test run as CSV, one row per operation and a total row. The settings of
+ * the run are written as {@code #} comment lines above the header, so two report files can be diffed.
+ */
+class LoadReport {
+
+    static final String HEADER = "operation,requests,throughput_per_sec,p50_ms,p99_ms,p999_ms,max_ms,"
+            + "client_errors,server_errors,failures,error_rate";
+
+    private LoadReport() {
+    }
+
+    static String write(Path file, List<String> settings, Map<LoadOperation, LatencyRecorder> recorders,
+                        double seconds) throws IOException {
+        StringWriter content = new StringWriter();
+        PrintWriter writer = new PrintWriter(content);
+        settings.forEach(setting -> writer.println("# " + setting));
+        writer.println(HEADER);
+        LatencyRecorder total = new LatencyRecorder();
+        recorders.forEach((operation, recorder) -> {
+            writer.println(row(operation.endpoint(), recorder, seconds));
+            total.merge(recorder);
+        });
+        writer.println(row("total", total, seconds));
+        writer.flush();
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, content.toString(), StandardCharsets.UTF_8);
+        return content.toString();
+    }
+
+    private static String row(String operation, LatencyRecorder recorder, double seconds) {
+        long[] latencies = recorder.sortedLatencies();
+        long errors = recorder.clientErrors() + recorder.serverErrors() + recorder.failures();
+        double errorRate = recorder.count() == 0 ? 0.0 : (double) errors / recorder.count();
+        return String.format(Locale.ROOT, "%s,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%d,%d,%d,%.5f",
+                operation, recorder.count(), recorder.count() / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                percentile(latencies, 1.0), recorder.clientErrors(), recorder.serverErrors(), recorder.failures(),
+                errorRate);
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
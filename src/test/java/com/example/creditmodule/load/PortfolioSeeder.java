@@ -0,0 +1,81 @@
+package com.example.creditmodule.load;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.dto.response.BulkLoanItemResultDTO;
+import com.example.creditmodule.entity.Customer;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Creates a synthetic portfolio through the services: customers are saved with {@code createCustomers}
+ * and loans with {@code createLoans}, so both are written with batched inserts. Every customer gets the
+ * same number of loans, installment counts rotate over the allowed values.
+ */
+class PortfolioSeeder {
+
+    private static final int CUSTOMER_CHUNK_SIZE = 1000;
+    private static final int LOAN_CHUNK_SIZE = 10_000;
+    private static final int[] INSTALLMENTS = {6, 9, 12, 24};
+
+    static final double LOAN_AMOUNT = 1200.0;
+    static final double INTEREST_RATE = 0.2;
+
+    private final CustomerService customerService;
+    private final LoanService loanService;
+
+    PortfolioSeeder(CustomerService customerService, LoanService loanService) {
+        this.customerService = customerService;
+        this.loanService = loanService;
+    }
+
+    SeededPortfolio seed(int customers, int loansPerCustomer) {
+        List<Long> customerIds = new ArrayList<>(customers);
+        for (int from = 0; from < customers; from += CUSTOMER_CHUNK_SIZE) {
+            List<CreateCustomerRequestDto> requests = new ArrayList<>();
+            for (int i = from; i < Math.min(from + CUSTOMER_CHUNK_SIZE, customers); i++) {
+                //enough limit for the seeded loans and everything createLoan adds during the run
+                requests.add(new CreateCustomerRequestDto("load" + i, "customer", 1_000_000_000.0, 0.0));
+            }
+            customerService.createCustomers(requests).stream().map(Customer::getId).forEach(customerIds::add);
+        }
+
+        List<Long> loanIds = new ArrayList<>(customers * loansPerCustomer);
+        List<CreateLoanRequestDTO> requests = new ArrayList<>();
+        for (int i = 0; i < customers * loansPerCustomer; i++) {
+            requests.add(loanRequest(customerIds.get(i % customers), INSTALLMENTS[i % INSTALLMENTS.length]));
+            if (requests.size() == LOAN_CHUNK_SIZE) {
+                loanIds.addAll(createLoans(requests));
+                requests.clear();
+            }
+        }
+        loanIds.addAll(createLoans(requests));
+        return new SeededPortfolio(customerIds, loanIds);
+    }
+
+    static CreateLoanRequestDTO loanRequest(Long customerId, int numberOfInstallment) {
+        CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+        request.setCustomerId(customerId);
+        request.setLoanAmount(LOAN_AMOUNT);
+        request.setNumberOfInstallment(numberOfInstallment);
+        request.setInterestRate(INTEREST_RATE);
+        return request;
+    }
+
+    private List<Long> createLoans(List<CreateLoanRequestDTO> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        return loanService.createLoans(requests).getResults().stream()
+                .map(BulkLoanItemResultDTO::getLoanId)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    record SeededPortfolio(List<Long> customerIds, List<Long> loanIds) {
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.creditmodule.load;
+
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds a synthetic portfolio and drives a mix of {@code createLoan}/{@code listLoans}/{@code listInstallments}/
+ * {@code payLoan} calls over HTTP from many clients for a fixed time. Throughput, p50/p99/p999 latency and error
+ * rates per operation are written to {@code -Dload.report} (default {@code build/reports/load/results.csv}),
+ * keep that file to compare builds. Run with {@code ./gradlew loadTest}; {@code -Dload.customers},
+ * {@code -Dload.loansPerCustomer}, {@code -Dload.clients}, {@code -Dload.warmup}, {@code -Dload.duration}
+ * and {@code -Dload.mix} change the run.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:load")
+class SoakLoadTest {
+
+    private static final int CUSTOMERS = Integer.getInteger("load.customers", 100);
+    private static final int LOANS_PER_CUSTOMER = Integer.getInteger("load.loansPerCustomer", 20);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 50);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT1M"));
+    private static final String MIX = System.getProperty("load.mix",
+            "createLoan=10,listLoans=30,listInstallments=40,payLoan=20");
+    private static final Path REPORT = Path.of(System.getProperty("load.report", "build/reports/load/results.csv"));
+
+    //covers one installment of every seeded loan, 6 installments being the shortest schedule
+    private static final String PAYMENT_AMOUNT = "240.0";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    private final String authorization = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void soak() throws Exception {
+        Map<LoadOperation, Integer> mix = LoadOperation.parseMix(MIX);
+        long seedStart = System.nanoTime();
+        PortfolioSeeder.SeededPortfolio portfolio = new PortfolioSeeder(customerService, loanService)
+                .seed(CUSTOMERS, LOANS_PER_CUSTOMER);
+        double seedSeconds = (System.nanoTime() - seedStart) / 1_000_000_000.0;
+        System.out.printf("[load] seeded %d customers and %d loans in %.2f s%n",
+                portfolio.customerIds().size(), portfolio.loanIds().size(), seedSeconds);
+
+        //warm up the JIT and the connection pools, the warm-up results are dropped
+        runClients(portfolio, mix, WARMUP);
+        long start = System.nanoTime();
+        Map<LoadOperation, LatencyRecorder> recorders = runClients(portfolio, mix, DURATION);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        List<String> settings = List.of(
+                "customers=" + CUSTOMERS, "loansPerCustomer=" + LOANS_PER_CUSTOMER, "clients=" + CLIENTS,
+                "warmup=" + WARMUP, "duration=" + DURATION, "mix=" + MIX,
+                "java=" + System.getProperty("java.version"),
+                String.format(Locale.ROOT, "seedSeconds=%.2f", seedSeconds));
+        System.out.print(LoadReport.write(REPORT, settings, recorders, seconds));
+        System.out.println("[load] report written to " + REPORT.toAbsolutePath());
+
+        //4xx are business rejections, e.g. paying a loan without payable installments, 5xx and I/O errors are not
+        long serverErrors = recorders.values().stream().mapToLong(recorder -> recorder.serverErrors() + recorder.failures()).sum();
+        Assertions.assertEquals(0, serverErrors, "server errors or failed requests, see " + REPORT);
+    }
+
+    private Map<LoadOperation, LatencyRecorder> runClients(PortfolioSeeder.SeededPortfolio portfolio,
+                                                           Map<LoadOperation, Integer> mix,
+                                                           Duration duration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<LoadOperation, LatencyRecorder>>> futures = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                Map<LoadOperation, LatencyRecorder> clientRecorders = newRecorders(mix);
+                long deadline = System.nanoTime() + duration.toNanos();
+                while (System.nanoTime() < deadline) {
+                    LoadOperation operation = nextOperation(mix);
+                    HttpRequest request = request(operation, portfolio);
+                    long begin = System.nanoTime();
+                    int status;
+                    try {
+                        status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    clientRecorders.get(operation).record(System.nanoTime() - begin, status);
+                }
+                return clientRecorders;
+            }));
+        }
+
+        start.countDown();
+        Map<LoadOperation, LatencyRecorder> recorders = newRecorders(mix);
+        for (Future<Map<LoadOperation, LatencyRecorder>> future : futures) {
+            future.get(duration.toSeconds() + 600, TimeUnit.SECONDS)
+                    .forEach((operation, recorder) -> recorders.get(operation).merge(recorder));
+        }
+        executor.shutdown();
+        return recorders;
+    }
+
+    private static Map<LoadOperation, LatencyRecorder> newRecorders(Map<LoadOperation, Integer> mix) {
+        Map<LoadOperation, LatencyRecorder> recorders = new EnumMap<>(LoadOperation.class);
+        mix.keySet().forEach(operation -> recorders.put(operation, new LatencyRecorder()));
+        return recorders;
+    }
+
+    private static LoadOperation nextOperation(Map<LoadOperation, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<LoadOperation, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Load mix is empty");
+    }
+
+    private HttpRequest request(LoadOperation operation, PortfolioSeeder.SeededPortfolio portfolio) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long customerId = portfolio.customerIds().get(random.nextInt(portfolio.customerIds().size()));
+        Long loanId = portfolio.loanIds().get(random.nextInt(portfolio.loanIds().size()));
+        return switch (operation) {
+            case CREATE_LOAN -> post(operation, "{\"customerId\":" + customerId + ",\"loanAmount\":"
+                    + PortfolioSeeder.LOAN_AMOUNT + ",\"numberOfInstallment\":12,\"interestRate\":"
+                    + PortfolioSeeder.INTEREST_RATE + "}");
+            case LIST_LOANS -> post(operation, "{\"customerId\":" + customerId + ",\"pageSize\":20}");
+            case LIST_INSTALLMENTS -> HttpRequest.newBuilder(uri(operation.endpoint() + "?loanId=" + loanId))
+                    .header("Authorization", authorization)
+                    .GET()
+                    .build();
+            case PAY_LOAN -> post(operation, "{\"loanId\":" + loanId + ",\"paymentAmount\":" + PAYMENT_AMOUNT + "}");
+        };
+    }
+
+    private HttpRequest post(LoadOperation operation, String body) {
+        return HttpRequest.newBuilder(uri(operation.endpoint()))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/loan/" + path);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.creditmodule.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class LoanMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoanMetrics loanMetrics = new LoanMetrics(meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void installmentsPaid_shouldCountOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        loanMetrics.installmentsPaid(2);
+        Assertions.assertEquals(0.0, installmentsPaid());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        Assertions.assertEquals(2.0, installmentsPaid());
+    }
+
+    @Test
+    void creditReserved_shouldNotCountARolledBackTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        loanMetrics.creditReserved(500.0);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        Assertions.assertEquals(0.0, meterRegistry.counter("creditmodule.credit.reserved").count());
+    }
+
+    @Test
+    void installmentsPaid_shouldCountAtOnceOutsideATransaction() {
+        loanMetrics.installmentsPaid(1);
+
+        Assertions.assertEquals(1.0, installmentsPaid());
+    }
+
+    private double installmentsPaid() {
+        return meterRegistry.counter("creditmodule.installments.paid").count();
+    }
+}
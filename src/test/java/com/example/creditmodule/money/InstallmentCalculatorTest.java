@@ -0,0 +1,45 @@
+package com.example.creditmodule.money;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+class InstallmentCalculatorTest {
+
+    @Test
+    void installmentAmount_lastInstallmentTakesTheRemainder() {
+        long totalAmount = InstallmentCalculator.totalRepayment(100_000L, 0.2);
+
+        long sum = 0;
+        for (int i = 0; i < 7; i++) {
+            sum += InstallmentCalculator.installmentAmount(totalAmount, 7, i);
+        }
+
+        Assertions.assertEquals(120_000L, totalAmount);
+        Assertions.assertEquals(17_142L, InstallmentCalculator.installmentAmount(totalAmount, 7, 0));
+        Assertions.assertEquals(17_148L, InstallmentCalculator.installmentAmount(totalAmount, 7, 6));
+        Assertions.assertEquals(totalAmount, sum);
+    }
+
+    @Test
+    void adjustment_shouldDiscountEarlyAndPenalizeLatePayments() {
+        LocalDate today = LocalDate.of(2025, 1, 11);
+
+        //0.1% per day of 1000.00 is 1.00 per day
+        Assertions.assertEquals(-1000L, InstallmentCalculator.adjustment(100_000L, LocalDate.of(2025, 1, 21), today));
+        Assertions.assertEquals(1000L, InstallmentCalculator.adjustment(100_000L, LocalDate.of(2025, 1, 1), today));
+        Assertions.assertEquals(0L, InstallmentCalculator.adjustment(100_000L, today, today));
+        //0.1% of 0.05 for 5 days is 0.025 cents, rounded to the nearest cent
+        Assertions.assertEquals(0L, InstallmentCalculator.adjustment(5L, LocalDate.of(2025, 1, 6), today));
+        Assertions.assertEquals(1L, InstallmentCalculator.adjustment(100L, LocalDate.of(2025, 1, 6), today));
+    }
+
+    @Test
+    void money_shouldRoundToNearestCent() {
+        //19.99 * 100 is 1998.9999999999998 in binary floating point
+        Assertions.assertEquals(1999L, Money.toMinor(19.99));
+        Assertions.assertEquals(0L, Money.toMinor(null, 0L));
+        Assertions.assertEquals(100.01, Money.toMajor(10_001L));
+    }
+}
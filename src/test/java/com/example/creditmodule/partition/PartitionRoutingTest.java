@@ -0,0 +1,160 @@
+package com.example.creditmodule.partition;
+
+import com.example.creditmodule.enums.ErrorMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//three embedded H2 databases, one per partition; an open EntityManager would pin a request to its first partition
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"app.partition.urls=jdbc:h2:mem:partition0,jdbc:h2:mem:partition1,jdbc:h2:mem:partition2",
+                "spring.jpa.open-in-view=false"})
+class PartitionRoutingTest {
+
+    private static final int PARTITIONS = 3;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PartitionRouter partitionRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final String authorization = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @Test
+    void customersShouldBeSpreadOverThePartitionsWithTheirLoans() throws Exception {
+        List<Long> customerIds = List.of(createCustomer(), createCustomer(), createCustomer());
+        Assertions.assertEquals(Set.of(0, 1, 2),
+                customerIds.stream().map(partitionRouter::partitionOf).collect(Collectors.toSet()));
+
+        for (Long customerId : customerIds) {
+            int partition = partitionRouter.partitionOf(customerId);
+            long loanId = post("api/loan/createLoan", loanRequest(customerId)).get("id").asLong();
+            Assertions.assertEquals(partition, partitionRouter.partitionOf(loanId));
+
+            //the rows are only in the customer's database, the installment ids carry the partition too
+            for (int other = 0; other < PARTITIONS; other++) {
+                Assertions.assertEquals(other == partition ? 1 : 0,
+                        count(other, "select count(*) from customer where id = ?", customerId));
+                Assertions.assertEquals(other == partition ? 6 : 0,
+                        count(other, "select count(*) from loan_installment where loan_id = ? and mod(id, 3) = ?", loanId, partition));
+            }
+            Assertions.assertEquals(6, get("api/loan/listInstallments?loanId=" + loanId).size());
+            Assertions.assertEquals(1, post("api/loan/listLoans", "{\"customerId\":" + customerId + "}").get("loans").size());
+        }
+    }
+
+    @Test
+    void createLoansShouldCreateEveryLoanInItsCustomersPartition() throws Exception {
+        List<Long> customerIds = List.of(createCustomer(), createCustomer(), createCustomer());
+        String body = "{\"loans\":[" + loanRequest(customerIds.get(2)) + "," + loanRequest(customerIds.get(0)) + ","
+                + loanRequest(999_999L) + "," + loanRequest(customerIds.get(1)) + "]}";
+
+        JsonNode results = post("api/loan/createLoans", body).get("results");
+
+        //results stay in request order although every partition has its own chunk
+        List<Long> expectedCustomers = List.of(customerIds.get(2), customerIds.get(0), customerIds.get(1));
+        int[] loanPositions = {0, 1, 3};
+        for (int i = 0; i < loanPositions.length; i++) {
+            JsonNode result = results.get(loanPositions[i]);
+            Assertions.assertEquals(loanPositions[i], result.get("index").asInt());
+            Long customerId = expectedCustomers.get(i);
+            long loanId = result.get("loanId").asLong();
+            int partition = partitionRouter.partitionOf(customerId);
+            Assertions.assertEquals(partition, partitionRouter.partitionOf(loanId));
+            //one request wrote to every partition, each loan with its installments and reserved credit is in its customer's
+            for (int other = 0; other < PARTITIONS; other++) {
+                Assertions.assertEquals(other == partition ? 1 : 0,
+                        count(other, "select count(*) from loan where id = ? and customer_id = ?", loanId, customerId));
+                Assertions.assertEquals(other == partition ? 6 : 0,
+                        count(other, "select count(*) from loan_installment where loan_id = ?", loanId));
+                Assertions.assertEquals(other == partition ? 1 : 0,
+                        count(other, "select count(*) from customer where id = ? and used_credit_limit > 0", customerId));
+            }
+        }
+        Assertions.assertEquals(ErrorMessage.CUSTOMER_NOT_FOUND.getErrorCode().intValue(), results.get(2).get("errorCode").asInt());
+    }
+
+    @Test
+    void portfolioSummaryShouldAddUpEveryPartition() throws Exception {
+        double before = get("api/portfolio/summary").get("outstandingAmount").asDouble();
+        double added = 0;
+        for (int i = 0; i < PARTITIONS; i++) {
+            Long customerId = createCustomer();
+            post("api/loan/createLoan", loanRequest(customerId));
+            added += get("api/portfolio/summary?customerId=" + customerId).get("outstandingAmount").asDouble();
+        }
+
+        Assertions.assertEquals(before + added, get("api/portfolio/summary").get("outstandingAmount").asDouble(), 0.001);
+        //every partition checks its own buckets, together they cover all customers
+        JsonNode rebuild = post("api/portfolio/rebuild", "");
+        Assertions.assertEquals(0, rebuild.get("bucketsRepaired").asInt());
+        Assertions.assertTrue(rebuild.get("customersChecked").asInt() >= PARTITIONS);
+    }
+
+    @Test
+    void unboundCallsShouldNotFallBackToTheFirstPartition() {
+        CannotGetJdbcConnectionException exception = Assertions.assertThrows(CannotGetJdbcConnectionException.class,
+                () -> jdbcTemplate.queryForObject("select count(*) from customer", Long.class));
+        Assertions.assertTrue(exception.getMessage().contains("No partition is bound"), exception.getMessage());
+    }
+
+    private Long createCustomer() throws Exception {
+        return post("createCustomer", "{\"name\":\"partitioned\",\"surname\":\"customer\",\"creditLimit\":10000.0,"
+                + "\"usedCreditLimit\":0.0}").get("id").asLong();
+    }
+
+    private static String loanRequest(Long customerId) {
+        return "{\"customerId\":" + customerId + ",\"loanAmount\":600.0,\"numberOfInstallment\":6,\"interestRate\":0.1}";
+    }
+
+    private long count(int partition, String sql, Object... args) {
+        return PartitionContext.callIn(partition, () -> jdbcTemplate.queryForObject(sql, Long.class, args));
+    }
+
+    private JsonNode get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).header("Authorization", authorization).GET().build());
+    }
+
+    private JsonNode post(String path, String body) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private JsonNode send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertTrue(response.statusCode() < 300, response.statusCode() + " " + response.body());
+        return jsonMapper.readTree(response.body());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/" + path);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.creditmodule.repository;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.entity.Customer;
+import com.example.creditmodule.entity.Loan;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:entitycache")
+class EntityCacheTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void creditLimitUpdateShouldEvictOnlyThatCustomer() {
+        Long customerId = createCustomer();
+        Long otherCustomerId = createCustomer();
+        Cache cache = entityManagerFactory.getCache();
+        customerRepository.findById(customerId);
+        customerRepository.findById(otherCustomerId);
+        Assertions.assertTrue(cache.contains(Customer.class, customerId));
+        Assertions.assertTrue(cache.contains(Customer.class, otherCustomerId));
+
+        loanService.createLoan(loanRequest(customerId, 600.0));
+
+        Assertions.assertFalse(cache.contains(Customer.class, customerId));
+        Assertions.assertTrue(cache.contains(Customer.class, otherCustomerId));
+        Assertions.assertEquals(Money.toMinor(600.0), customerRepository.findById(customerId).orElseThrow().getUsedCreditLimit());
+    }
+
+    @Test
+    void paidLoanShouldBeUpdatedInCache() {
+        Long customerId = createCustomer();
+        Long loanId = loanService.createLoan(loanRequest(customerId, 600.0)).getId();
+        Assertions.assertFalse(loanRepository.findById(loanId).orElseThrow().getIsPaid());
+        Assertions.assertTrue(entityManagerFactory.getCache().contains(Loan.class, loanId));
+
+        //the same entity update payLoan makes when the last installment is paid
+        transactionTemplate.executeWithoutResult(status -> {
+            Loan loan = loanRepository.findByIdForUpdate(loanId).orElseThrow();
+            loan.setIsPaid(true);
+            loanRepository.save(loan);
+        });
+
+        Assertions.assertTrue(entityManagerFactory.getCache().contains(Loan.class, loanId));
+        Assertions.assertTrue(loanRepository.findById(loanId).orElseThrow().getIsPaid());
+    }
+
+    private Long createCustomer() {
+        return customerService.createCustomer(new CreateCustomerRequestDto("cached", "customer", 10_000.0, 0.0)).getId();
+    }
+
+    private static CreateLoanRequestDTO loanRequest(Long customerId, double amount) {
+        CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+        request.setCustomerId(customerId);
+        request.setLoanAmount(amount);
+        request.setNumberOfInstallment(6);
+        request.setInterestRate(0.1);
+        return request;
+    }
+}
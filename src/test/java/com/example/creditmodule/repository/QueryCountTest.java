@@ -0,0 +1,128 @@
+package com.example.creditmodule.repository;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.dto.request.ListLoansRequestDTO;
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Counts the statements Hibernate prepares for each loan endpoint, so a lazy association that is
+ * loaded again per row shows up as a failing test. The second-level cache is cleared before every
+ * call, the counts are for a cold cache. Statements of the JDBC repository fragments (credit limit,
+ * portfolio buckets) are not counted by Hibernate. Sequence calls are not counted either: whether a
+ * call needs a new block of pooled ids depends on the ids the tests before it used up.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querycount",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class QueryCountTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Long customerId;
+    private Long loanId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("counted", "customer", 10_000.0, 0.0)).getId();
+        loanId = loanService.createLoan(loanRequest()).getId();
+    }
+
+    @Test
+    void listInstallments_shouldOnlyReadInstallments() {
+        assertStatements(1, () -> loanService.listInstallments(loanId));
+    }
+
+    @Test
+    void listLoans_shouldOnlyReadLoans() {
+        ListLoansRequestDTO request = new ListLoansRequestDTO();
+        request.setCustomerId(customerId);
+
+        assertStatements(1, () -> loanService.listLoans(request));
+    }
+
+    //the ETag lookups of the list endpoints, unlike the other calls they are counted with a warm cache
+    @Test
+    void listVersions_shouldBeReadFromTheEntityCache() {
+        loanService.installmentsVersion(loanId);
+        loanService.loanBookVersion(customerId);
+        statistics.clear();
+
+        loanService.installmentsVersion(loanId);
+        loanService.loanBookVersion(customerId);
+
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount(), statistics.toString());
+    }
+
+    @Test
+    void exportLoans_shouldReadLoansWithTheirInstallmentsInOneQuery() {
+        assertStatements(1, () -> loanService.exportLoans(customerId, loan -> {
+        }));
+    }
+
+    //lock the loan, read payable installments, update the paid one, count the unpaid ones, bump the loan's version
+    @Test
+    void payLoan_shouldNotLoadTheCustomer() {
+        assertStatements(5, () -> loanService.payLoan(new PayLoanRequest(loanId, 110.0)));
+    }
+
+    //read the customer, insert the loan, insert the installments in one batch
+    @Test
+    void createLoan_shouldInsertInstallmentsInOneBatch() {
+        assertStatements(3, () -> loanService.createLoan(loanRequest()));
+    }
+
+    private void assertStatements(long expected, Runnable call) {
+        entityManagerFactory.getCache().evictAll();
+        long sequenceCallsBefore = sequenceCalls();
+        statistics.clear();
+
+        call.run();
+
+        long sequenceCalls = sequenceCalls() - sequenceCallsBefore;
+        Assertions.assertEquals(expected, statistics.getPrepareStatementCount() - sequenceCalls,
+                sequenceCalls + " sequence calls, " + statistics);
+        //no association was loaded on its own
+        Assertions.assertEquals(0, statistics.getEntityFetchCount(), statistics.toString());
+    }
+
+    //every call of a sequence moves its next value on by one increment
+    private long sequenceCalls() {
+        return jdbcTemplate.queryForObject("select sum(base_value / increment) from information_schema.sequences " +
+                "where sequence_schema = 'PUBLIC'", Long.class);
+    }
+
+    private CreateLoanRequestDTO loanRequest() {
+        CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+        request.setCustomerId(customerId);
+        request.setLoanAmount(600.0);
+        request.setNumberOfInstallment(6);
+        request.setInterestRate(0.1);
+        return request;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.creditmodule.repository;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Fails when H2 plans one of the hot repository queries as a table scan, e.g. after an index of
+ * the migrations was dropped or a query stopped matching its index. The SQL explained is the one
+ * Hibernate generates for the repository method, captured by a {@link StatementInspector}.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:queryplan")
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private CapturedSql capturedSql;
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                hotQuery("findByCustomerId", test -> test.loanRepository.findByCustomerId(1L),
+                        "IDX_LOAN_CUSTOMER_ID"),
+                hotQuery("findLoanResponsePage", test -> test.loanRepository.findLoanResponsePage(1L, null, null, 10L,
+                        PageRequest.ofSize(101)), "IDX_LOAN_CUSTOMER_ID"),
+                hotQuery("findByLoanId", test -> test.loanInstallmentRepository.findByLoanId(1L),
+                        "IDX_LOAN_INSTALLMENT_LOAN_PAID_DUE"),
+                hotQuery("findPayableInstallments", test -> test.loanInstallmentRepository.findPayableInstallments(1L,
+                        LocalDate.of(2025, 1, 1)), "IDX_LOAN_INSTALLMENT_LOAN_PAID_DUE"),
+                hotQuery("countByLoanIdAndIsPaidFalse", test -> test.loanInstallmentRepository.countByLoanIdAndIsPaidFalse(1L),
+                        "IDX_LOAN_INSTALLMENT_LOAN_PAID_DUE"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryShouldUseIndex(String query, Consumer<QueryPlanTest> call, String expectedIndex) {
+        capturedSql.statements.clear();
+        call.accept(this);
+        String sql = capturedSql.statements.stream()
+                .filter(statement -> statement.trim().toLowerCase().startsWith("select"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(query + " did not run a select"));
+
+        //H2 plans a statement when it is prepared, the parameters only have to be set for EXPLAIN to run
+        Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, parameters);
+
+        Assertions.assertFalse(plan.contains("tableScan"), query + " scans the table: " + plan);
+        Assertions.assertTrue(plan.toUpperCase().contains(expectedIndex), query + " does not use " + expectedIndex + ": " + plan);
+    }
+
+    private static Arguments hotQuery(String query, Consumer<QueryPlanTest> call, String expectedIndex) {
+        return Arguments.of(query, call, expectedIndex);
+    }
+
+    @TestConfiguration
+    static class CaptureSqlConfig {
+
+        @Bean
+        CapturedSql capturedSql() {
+            return new CapturedSql();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer captureSql(CapturedSql capturedSql) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, capturedSql);
+        }
+    }
+
+    //every statement Hibernate sends, unchanged
+    static class CapturedSql implements StatementInspector {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.creditmodule.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100, meterRegistry);
+    }
+
+    @Test
+    void authenticate_shouldCallDelegateOnceForSameCredentials() {
+        Authentication authenticated = UsernamePasswordAuthenticationToken.authenticated("admin", null, List.of());
+        Mockito.when(delegate.authenticate(any())).thenReturn(authenticated);
+
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "admin"));
+        Authentication result = provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "admin"));
+
+        Assertions.assertSame(authenticated, result);
+        Mockito.verify(delegate, times(1)).authenticate(any());
+        Assertions.assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void authenticate_shouldNotReuseResultForDifferentPassword() {
+        Authentication authenticated = UsernamePasswordAuthenticationToken.authenticated("admin", null, List.of());
+        Mockito.when(delegate.authenticate(any()))
+                .thenReturn(authenticated)
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "admin"));
+
+        Assertions.assertThrows(BadCredentialsException.class, () ->
+                provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "wrong")));
+        Mockito.verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_shouldNotCacheFailedAttempts() {
+        Mockito.when(delegate.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertThrows(BadCredentialsException.class, () ->
+                    provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "wrong")));
+        }
+        Mockito.verify(delegate, times(2)).authenticate(any());
+    }
+}
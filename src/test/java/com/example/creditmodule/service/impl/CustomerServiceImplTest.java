@@ -2,6 +2,7 @@ package com.example.creditmodule.service.impl;
 
 import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
 import com.example.creditmodule.entity.Customer;
+import com.example.creditmodule.partition.PartitionRouter;
 import com.example.creditmodule.repository.CustomerRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -9,9 +10,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.times;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,6 +27,12 @@ class CustomerServiceImplTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private PartitionRouter partitionRouter = new PartitionRouter(1);
+
     @InjectMocks
     private CustomerServiceImpl customerService;
 
@@ -40,8 +53,8 @@ class CustomerServiceImplTest {
         Assertions.assertNotNull(createdCustomer);
         Assertions.assertEquals("TEST", createdCustomer.getName());
         Assertions.assertEquals("test", createdCustomer.getSurname());
-        Assertions.assertEquals(500.0, createdCustomer.getUsedCreditLimit());
-        Assertions.assertEquals(1000.0, createdCustomer.getCreditLimit());
+        Assertions.assertEquals(50_000L, createdCustomer.getUsedCreditLimit());
+        Assertions.assertEquals(100_000L, createdCustomer.getCreditLimit());
 
         Mockito.verify(customerRepository, times(1)).save(any(Customer.class));
     }
@@ -63,9 +76,39 @@ class CustomerServiceImplTest {
         Assertions.assertNotNull(createdCustomer);
         Assertions.assertEquals("test", createdCustomer.getName());
         Assertions.assertEquals("test", createdCustomer.getSurname());
-        Assertions.assertEquals(0.0, createdCustomer.getUsedCreditLimit());
-        Assertions.assertEquals(0.0, createdCustomer.getCreditLimit());
+        Assertions.assertEquals(0L, createdCustomer.getUsedCreditLimit());
+        Assertions.assertEquals(0L, createdCustomer.getCreditLimit());
 
         Mockito.verify(customerRepository, times(1)).save(any(Customer.class));
     }
+
+    @Test
+    public void testCreateCustomers_savesAllCustomersAtOnce() {
+        List<CreateCustomerRequestDto> requests = List.of(
+                new CreateCustomerRequestDto("first", "customer", 1000.0, null),
+                new CreateCustomerRequestDto("second", "customer", 2000.0, 500.0));
+
+        Mockito.when(transactionTemplate.execute(any())).thenAnswer(
+                invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        Mockito.when(customerRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Customer> customers = customerService.createCustomers(requests);
+
+        Assertions.assertEquals(2, customers.size());
+        Assertions.assertEquals("first", customers.get(0).getName());
+        Assertions.assertEquals(100_000L, customers.get(0).getCreditLimit());
+        Assertions.assertEquals(0L, customers.get(0).getUsedCreditLimit());
+        Assertions.assertEquals(50_000L, customers.get(1).getUsedCreditLimit());
+
+        Mockito.verify(customerRepository, Mockito.never()).save(any(Customer.class));
+        Mockito.verify(partitionRouter).nextPartition();
+    }
+
+    @Test
+    public void testCustomerExists() {
+        Mockito.when(customerRepository.existsById(1L)).thenReturn(true);
+
+        Assertions.assertTrue(customerService.customerExists(1L));
+        Assertions.assertFalse(customerService.customerExists(2L));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.repository.IdempotencyRecordRepository;
+import com.example.creditmodule.repository.LoanInstallmentRepository;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.IdempotencyService;
+import com.example.creditmodule.service.LoanService;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:idempotency;LOCK_TIMEOUT=10000")
+class IdempotencyServiceIntegrationTest {
+
+    private static final int THREADS = 20;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Test
+    void execute_shouldPayOnceWhenDuplicatesArriveConcurrently() throws Exception {
+        Long loanId = createLoan();
+        PayLoanRequest request = new PayLoanRequest(loanId, 110.0);
+        AtomicInteger executions = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LoanPaymentResponseDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return idempotencyService.execute("payLoan", "pay-" + loanId, request, LoanPaymentResponseDTO.class,
+                        () -> {
+                            executions.incrementAndGet();
+                            return loanService.payLoan(request);
+                        });
+            }));
+        }
+        start.countDown();
+        List<LoanPaymentResponseDTO> responses = new ArrayList<>();
+        for (Future<LoanPaymentResponseDTO> future : futures) {
+            responses.add(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertEquals(5L, loanInstallmentRepository.countByLoanIdAndIsPaidFalse(loanId));
+        for (LoanPaymentResponseDTO response : responses) {
+            Assertions.assertEquals(1, response.getPaidInstallments());
+            Assertions.assertEquals(responses.get(0), response);
+        }
+    }
+
+    @Test
+    void execute_shouldReplayStoredResponseAfterCacheEviction() {
+        Long loanId = createLoan();
+        PayLoanRequest request = new PayLoanRequest(loanId, 110.0);
+
+        LoanPaymentResponseDTO first = idempotencyService.execute("payLoan", "replay-" + loanId, request,
+                LoanPaymentResponseDTO.class, () -> loanService.payLoan(request));
+        //only the database record is left, as after a restart or on another instance
+        ((Cache<?, ?>) ReflectionTestUtils.getField(idempotencyService, "calls")).invalidateAll();
+        LoanPaymentResponseDTO replay = idempotencyService.execute("payLoan", "replay-" + loanId, request,
+                LoanPaymentResponseDTO.class, () -> loanService.payLoan(request));
+
+        Assertions.assertEquals(first, replay);
+        Assertions.assertEquals(5L, loanInstallmentRepository.countByLoanIdAndIsPaidFalse(loanId));
+        Assertions.assertTrue(idempotencyRecordRepository.existsById("payLoan:replay-" + loanId));
+    }
+
+    @Test
+    void execute_shouldRejectKeyReusedForDifferentRequest() {
+        Long loanId = createLoan();
+        PayLoanRequest request = new PayLoanRequest(loanId, 110.0);
+        idempotencyService.execute("payLoan", "reused-" + loanId, request, LoanPaymentResponseDTO.class,
+                () -> loanService.payLoan(request));
+
+        PayLoanRequest other = new PayLoanRequest(loanId, 220.0);
+        CreditModuleException exception = Assertions.assertThrows(CreditModuleException.class,
+                () -> idempotencyService.execute("payLoan", "reused-" + loanId, other, LoanPaymentResponseDTO.class,
+                        () -> loanService.payLoan(other)));
+
+        Assertions.assertEquals(ErrorMessage.IDEMPOTENCY_KEY_REUSED.getErrorCode(), exception.getErrorCode());
+        Assertions.assertEquals(5L, loanInstallmentRepository.countByLoanIdAndIsPaidFalse(loanId));
+    }
+
+    @Test
+    void execute_shouldRunAgainAfterFailure() {
+        Long loanId = createLoan();
+        PayLoanRequest request = new PayLoanRequest(loanId, 110.0);
+        AtomicInteger executions = new AtomicInteger();
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> idempotencyService.execute("payLoan", "retry-" + loanId, request, LoanPaymentResponseDTO.class,
+                        () -> {
+                            executions.incrementAndGet();
+                            throw new IllegalStateException("failed");
+                        }));
+        LoanPaymentResponseDTO response = idempotencyService.execute("payLoan", "retry-" + loanId, request,
+                LoanPaymentResponseDTO.class, () -> {
+                    executions.incrementAndGet();
+                    return loanService.payLoan(request);
+                });
+
+        Assertions.assertEquals(2, executions.get());
+        Assertions.assertEquals(1, response.getPaidInstallments());
+    }
+
+    //660 to pay back in 6 installments of 110
+    private Long createLoan() {
+        Long customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("idempotent", "customer", 10_000.0, 0.0)).getId();
+        CreateLoanRequestDTO loanRequest = new CreateLoanRequestDTO();
+        loanRequest.setCustomerId(customerId);
+        loanRequest.setLoanAmount(600.0);
+        loanRequest.setNumberOfInstallment(6);
+        loanRequest.setInterestRate(0.1);
+        return loanService.createLoan(loanRequest).getId();
+    }
+}
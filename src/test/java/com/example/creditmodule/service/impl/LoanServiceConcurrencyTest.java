@@ -0,0 +1,95 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.entity.Customer;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.money.Money;
+import com.example.creditmodule.repository.CustomerRepository;
+import com.example.creditmodule.repository.LoanRepository;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:concurrency;LOCK_TIMEOUT=10000")
+class LoanServiceConcurrencyTest {
+
+    private static final int THREADS = 200;
+    private static final int LOANS_PER_THREAD = 5;
+    private static final double LOAN_AMOUNT = 100.0;
+    //enough limit for 600 of the 1000 requested loans
+    private static final double CREDIT_LIMIT = 60_000.0;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    void createLoan_shouldNotLoseUpdatesWhenManyThreadsHitOneCustomer() throws Exception {
+        Long customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("concurrent", "customer", CREDIT_LIMIT, 0.0)).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < LOANS_PER_THREAD; j++) {
+                    try {
+                        loanService.createLoan(loanRequest(customerId));
+                        created.incrementAndGet();
+                    } catch (CreditModuleException e) {
+                        Assertions.assertEquals(ErrorMessage.INSUFFICIENT_CREDIT_LIMIT.getMessage(), e.getErrorMessage());
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        Customer customer = customerRepository.findById(customerId).orElseThrow();
+        Assertions.assertEquals(600, created.get());
+        Assertions.assertEquals(THREADS * LOANS_PER_THREAD - 600, rejected.get());
+        Assertions.assertEquals(Money.toMinor(created.get() * LOAN_AMOUNT), customer.getUsedCreditLimit());
+        Assertions.assertEquals(created.get(), loanRepository.findByCustomerId(customerId).size());
+    }
+
+    private CreateLoanRequestDTO loanRequest(Long customerId) {
+        CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+        request.setCustomerId(customerId);
+        request.setLoanAmount(LOAN_AMOUNT);
+        request.setNumberOfInstallment(6);
+        request.setInterestRate(0.1);
+        return request;
+    }
+}
@@ -3,30 +3,50 @@ package com.example.creditmodule.service.impl;
 import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
 import com.example.creditmodule.dto.request.ListLoansRequestDTO;
 import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.request.PaymentQuoteRequestDTO;
+import com.example.creditmodule.dto.response.BulkLoanResponseDTO;
+import com.example.creditmodule.dto.response.BulkPaymentItemResultDTO;
+import com.example.creditmodule.dto.response.LoanExportDTO;
 import com.example.creditmodule.dto.response.LoanInstallmentResponseDTO;
+import com.example.creditmodule.dto.response.LoanPageResponseDTO;
 import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
 import com.example.creditmodule.dto.response.LoanResponseDTO;
+import com.example.creditmodule.dto.response.PaymentQuoteResponseDTO;
 import com.example.creditmodule.entity.Customer;
 import com.example.creditmodule.entity.Loan;
 import com.example.creditmodule.entity.LoanInstallment;
 import com.example.creditmodule.enums.ErrorMessage;
 import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.metrics.LoanMetrics;
+import com.example.creditmodule.partition.PartitionContext;
+import com.example.creditmodule.partition.PartitionRouter;
 import com.example.creditmodule.repository.CustomerRepository;
 import com.example.creditmodule.repository.LoanInstallmentRepository;
 import com.example.creditmodule.repository.LoanRepository;
+import com.example.creditmodule.repository.PayableInstallment;
+import com.example.creditmodule.service.PortfolioService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 class LoanServiceImplTest {
@@ -40,6 +60,24 @@ class LoanServiceImplTest {
         @Mock
         private LoanInstallmentRepository loanInstallmentRepository;
 
+        @Mock
+        private TransactionTemplate transactionTemplate;
+
+        @Mock
+        private Validator validator;
+
+        @Mock
+        private EntityManager entityManager;
+
+        @Mock
+        private LoanMetrics loanMetrics;
+
+        @Mock
+        private PortfolioService portfolioService;
+
+        @Spy
+        private PartitionRouter partitionRouter = new PartitionRouter(1);
+
         @InjectMocks
         private LoanServiceImpl loanService;
 
@@ -54,25 +92,28 @@ class LoanServiceImplTest {
 
             Customer customer = new Customer();
             customer.setId(customerId);
-            customer.setCreditLimit(10000.0);
-            customer.setUsedCreditLimit(2000.0);
+            customer.setCreditLimit(1_000_000L);
+            customer.setUsedCreditLimit(200_000L);
 
             Loan loan = new Loan();
             loan.setId(1L);
-            loan.setLoanAmount(5000.0);
+            loan.setLoanAmount(500_000L);
             loan.setNumberOfInstallment(12);
 
             Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+            Mockito.when(customerRepository.reserveCreditLimit(customerId, 500_000L)).thenReturn(1);
             Mockito.when(loanRepository.save(Mockito.any(Loan.class))).thenReturn(loan);
 
             Loan createdLoan = loanService.createLoan(request);
 
             Assertions.assertNotNull(createdLoan);
-            Assertions.assertEquals(5000.0, createdLoan.getLoanAmount());
+            Assertions.assertEquals(500_000L, createdLoan.getLoanAmount());
             Assertions.assertEquals(12, createdLoan.getNumberOfInstallment());
-            Mockito.verify(customerRepository).save(Mockito.any(Customer.class));
+            Mockito.verify(customerRepository).reserveCreditLimit(customerId, 500_000L);
+            Mockito.verify(loanMetrics).creditReserved(5000.0);
             Mockito.verify(loanRepository).save(Mockito.any(Loan.class));
             Mockito.verify(loanInstallmentRepository).saveAll(Mockito.anyList());
+            Mockito.verify(portfolioService).installmentsCreated(Mockito.<List<LoanInstallment>>argThat(installments -> installments.size() == 12));
         }
 
         @Test
@@ -101,8 +142,8 @@ class LoanServiceImplTest {
 
             Customer customer = new Customer();
             customer.setId(customerId);
-            customer.setCreditLimit(10000.0);
-            customer.setUsedCreditLimit(5000.0);
+            customer.setCreditLimit(1_000_000L);
+            customer.setUsedCreditLimit(500_000L);
 
             Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
 
@@ -123,8 +164,8 @@ class LoanServiceImplTest {
 
             Customer customer = new Customer();
             customer.setId(customerId);
-            customer.setCreditLimit(10000.0);
-            customer.setUsedCreditLimit(2000.0);
+            customer.setCreditLimit(1_000_000L);
+            customer.setUsedCreditLimit(200_000L);
 
             Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
 
@@ -135,13 +176,26 @@ class LoanServiceImplTest {
             Assertions.assertEquals(ErrorMessage.INVALID_NUMBER_OF_INSTALLMENTS.getMessage(), exception.getErrorMessage());
         }
 
+    @Test
+    void createInstallments_shouldAddUpToTotalAmount() {
+        Loan loan = new Loan();
+
+        //100.01 over 6 installments leaves 5 cents for the last one
+        List<LoanInstallment> installments = loanService.createInstallments(loan, 10_001L, 6);
+
+        Assertions.assertEquals(6, installments.size());
+        Assertions.assertEquals(1666L, installments.get(0).getAmount());
+        Assertions.assertEquals(1671L, installments.get(5).getAmount());
+        Assertions.assertEquals(10_001L, installments.stream().mapToLong(LoanInstallment::getAmount).sum());
+    }
+
     @Test
     void listLoans_ThrowExceptionIfCustomerNotFound() {
         Long customerId = 1000L;
         ListLoansRequestDTO request = new ListLoansRequestDTO();
         request.setCustomerId(customerId);
 
-        Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.empty());
+        Mockito.when(customerRepository.existsById(customerId)).thenReturn(false);
 
         CreditModuleException exception = Assertions.assertThrows(
                 CreditModuleException.class,
@@ -157,11 +211,9 @@ class LoanServiceImplTest {
         ListLoansRequestDTO request = new ListLoansRequestDTO();
         request.setCustomerId(customerId);
 
-        Customer customer = new Customer();
-        customer.setId(customerId);
-
-        Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        Mockito.when(loanRepository.findByCustomerId(customerId)).thenReturn(Collections.emptyList());
+        Mockito.when(customerRepository.existsById(customerId)).thenReturn(true);
+        Mockito.when(loanRepository.findLoanResponsePage(Mockito.eq(customerId), Mockito.isNull(), Mockito.isNull(), Mockito.isNull(), Mockito.any()))
+                .thenReturn(Collections.emptyList());
 
         CreditModuleException exception = Assertions.assertThrows(
                 CreditModuleException.class,
@@ -182,28 +234,51 @@ class LoanServiceImplTest {
         request.setNumberOfInstallment(filterInstallments);
         request.setIsPaid(filterIsPaid);
 
-        Customer customer = new Customer();
-        customer.setId(customerId);
+        ReflectionTestUtils.setField(loanService, "defaultPageSize", 100);
 
-        List<Loan> loans = List.of(
-                new Loan(1L, 5000.0, 12, LocalDate.now(), false, customer),
-                new Loan(2L, 3000.0, 6, LocalDate.now(), true, customer),
-                new Loan(3L, 7000.0, 12, LocalDate.now(), true, customer)
+        //filters are applied by the query, only the matching loan comes back
+        List<LoanResponseDTO> loans = List.of(
+                new LoanResponseDTO(1L, 500_000L, 12, LocalDate.now(), false)
         );
 
-        Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        Mockito.when(loanRepository.findByCustomerId(customerId)).thenReturn(loans);
+        Mockito.when(loanRepository.findLoanResponsePage(customerId, filterInstallments, filterIsPaid, null, PageRequest.of(0, 101)))
+                .thenReturn(loans);
 
-        List<LoanResponseDTO> response = loanService.listLoans(request);
+        LoanPageResponseDTO response = loanService.listLoans(request);
 
-        Assertions.assertEquals(1, response.size());
-        Assertions.assertEquals(loans.get(0).getId(), response.get(0).getId());
+        Assertions.assertEquals(1, response.getLoans().size());
+        Assertions.assertEquals(loans.get(0).getId(), response.getLoans().get(0).getId());
+        Assertions.assertNull(response.getNextAfterId());
+        Mockito.verify(customerRepository, Mockito.never()).existsById(customerId);
+    }
+
+    @Test
+    void listLoans_shouldReturnCursorOfNextPage() {
+        Long customerId = 100L;
+        ListLoansRequestDTO request = new ListLoansRequestDTO();
+        request.setCustomerId(customerId);
+        request.setAfterId(10L);
+        request.setPageSize(2);
+
+        List<LoanResponseDTO> loans = List.of(
+                new LoanResponseDTO(11L, 500_000L, 12, LocalDate.now(), false),
+                new LoanResponseDTO(12L, 300_000L, 6, LocalDate.now(), true),
+                new LoanResponseDTO(13L, 700_000L, 12, LocalDate.now(), true)
+        );
+
+        Mockito.when(loanRepository.findLoanResponsePage(customerId, null, null, 10L, PageRequest.of(0, 3))).thenReturn(loans);
+
+        LoanPageResponseDTO response = loanService.listLoans(request);
+
+        Assertions.assertEquals(2, response.getLoans().size());
+        Assertions.assertEquals(12L, response.getLoans().get(1).getId());
+        Assertions.assertEquals(12L, response.getNextAfterId());
     }
 
     @Test
     void listInstallment_ThrowExceptionIfNotFound() {
         Long loanId = 1000L;
-        Mockito.when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(Collections.emptyList());
+        Mockito.when(loanInstallmentRepository.findResponsesByLoanId(loanId)).thenReturn(Collections.emptyList());
 
         CreditModuleException exception = Assertions.assertThrows(
                 CreditModuleException.class,
@@ -216,14 +291,13 @@ class LoanServiceImplTest {
     @Test
     void listInstallments_ReturnsInstallmentsSuccessfully() {
         Long loanId = 100L;
-        Loan loan = new Loan();
-        loan.setId(loanId);
-        List<LoanInstallment> installments = Arrays.asList(
-                new LoanInstallment(1L, 100.0, 0.0, LocalDate.of(2024,12,17), LocalDate.of(2024,12,15), true,loan),
-                new LoanInstallment(2L, 100.0, 100.0, LocalDate.of(2025,1,17), null, false,loan)
+        //amounts come from the query in minor units
+        List<LoanInstallmentResponseDTO> installments = Arrays.asList(
+                new LoanInstallmentResponseDTO(1L, 10_000L, 0L, LocalDate.of(2024,12,17), LocalDate.of(2024,12,15), true),
+                new LoanInstallmentResponseDTO(2L, 10_000L, 10_000L, LocalDate.of(2025,1,17), null, false)
         );
 
-        Mockito.when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
+        Mockito.when(loanInstallmentRepository.findResponsesByLoanId(loanId)).thenReturn(installments);
 
         List<LoanInstallmentResponseDTO> response = loanService.listInstallments(loanId);
 
@@ -246,13 +320,56 @@ class LoanServiceImplTest {
         Assertions.assertFalse(secondInstallment.getIsPaid());
     }
 
+    @Test
+    void payLoans_shouldApplyPaymentsOfALoanInRequestOrder() {
+        Customer customer = new Customer();
+        customer.setId(5L);
+
+        Loan loan = new Loan();
+        loan.setId(1L);
+        loan.setLoanAmount(200_000L);
+        loan.setNumberOfInstallment(2);
+        loan.setIsPaid(false);
+        loan.setCustomer(customer);
+
+        //due today, so there is no discount or penalty
+        List<LoanInstallment> installments = new ArrayList<>();
+        for (long id = 1; id <= 2; id++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setId(id);
+            installment.setAmount(100_000L);
+            installment.setIsPaid(false);
+            installment.setDueDate(LocalDate.now());
+            installment.setLoan(loan);
+            installments.add(installment);
+        }
+
+        Mockito.when(loanRepository.findAllByIdForUpdate(Mockito.anyCollection())).thenReturn(List.of(loan));
+        Mockito.when(loanInstallmentRepository.findUnpaidByLoanIds(Mockito.anyCollection())).thenReturn(installments);
+
+        List<BulkPaymentItemResultDTO> results = loanService.payLoans(List.of(
+                new PayLoanRequest(1L, 1000.0),
+                new PayLoanRequest(2L, 10.0),
+                new PayLoanRequest(1L, 1000.0),
+                new PayLoanRequest(1L, 10.0)));
+
+        Assertions.assertEquals(1, results.get(0).getPayment().getPaidInstallments());
+        Assertions.assertEquals(1L, results.get(0).getPayment().getUnpaidInstallments());
+        Assertions.assertEquals(ErrorMessage.LOAN_NOT_FOUND.getErrorCode(), results.get(1).getErrorCode());
+        Assertions.assertEquals(0L, results.get(2).getPayment().getUnpaidInstallments());
+        Assertions.assertEquals(ErrorMessage.NO_PAYABLE_INSTALLMENTS.getErrorCode(), results.get(3).getErrorCode());
+        Assertions.assertTrue(loan.getIsPaid());
+        Mockito.verify(customerRepository).releaseCreditLimit(5L, 200_000L);
+        Mockito.verify(portfolioService).installmentsPaid(installments);
+    }
+
     @Test
     void payLoan_loanNotFound() {
             Long loanId = 1L;
         double paymentAmount = 20.0;
         PayLoanRequest request = new PayLoanRequest(loanId, paymentAmount);
 
-        Mockito.when(loanRepository.findById(loanId)).thenReturn(Optional.empty());
+        Mockito.when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.empty());
 
         CreditModuleException exception = Assertions.assertThrows(
                 CreditModuleException.class,
@@ -270,10 +387,11 @@ class LoanServiceImplTest {
 
         Loan loan = new Loan();
         loan.setId(loanId);
-        Mockito.when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
+        Mockito.when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
 
         List<LoanInstallment> payableInstallments = List.of();
-        Mockito.when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(payableInstallments);
+        Mockito.when(loanInstallmentRepository.findPayableInstallments(Mockito.eq(loanId), Mockito.any(LocalDate.class)))
+                .thenReturn(payableInstallments);
 
         CreditModuleException exception = Assertions.assertThrows(
                 CreditModuleException.class,
@@ -289,42 +407,44 @@ class LoanServiceImplTest {
         PayLoanRequest request = new PayLoanRequest(loanId, paymentAmount);
 
         Customer customer = new Customer();
-        customer.setUsedCreditLimit(1000.0);
+        customer.setUsedCreditLimit(100_000L);
 
         Loan loan = new Loan();
         loan.setId(loanId);
-        loan.setLoanAmount(3000.0);
+        loan.setLoanAmount(300_000L);
         loan.setNumberOfInstallment(3);
         loan.setIsPaid(false);
         loan.setCustomer(customer);
 
         LoanInstallment installment1 = new LoanInstallment();
         installment1.setId(1L);
-        installment1.setAmount(1000.0);
+        installment1.setAmount(100_000L);
         installment1.setIsPaid(true);
-        installment1.setPaidAmount(1000.0);
+        installment1.setPaidAmount(100_000L);
         installment1.setPaymentDate(LocalDate.of(2024,11,18));
         installment1.setDueDate(LocalDate.of(2025, 11, 18));
 
         LoanInstallment installment2 = new LoanInstallment();
         installment2.setId(2L);
-        installment2.setAmount(1000.0);
+        installment2.setAmount(100_000L);
         installment2.setIsPaid(false);
-        installment2.setPaidAmount(0.0);
+        installment2.setPaidAmount(0L);
         installment2.setPaymentDate(LocalDate.now());
         installment2.setDueDate(LocalDate.now());
 
         LoanInstallment installment3 = new LoanInstallment();
         installment3.setId(3L);
-        installment3.setAmount(1000.0);
+        installment3.setAmount(100_000L);
         installment3.setIsPaid(false);
-        installment3.setPaidAmount(0.0);
+        installment3.setPaidAmount(0L);
         installment2.setPaymentDate(null);
         installment3.setDueDate(LocalDate.of(2024, 1, 1));
 
-        Mockito.when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        Mockito.when(loanInstallmentRepository.findByLoanId(loanId))
-                .thenReturn(List.of(installment1, installment2, installment3));
+        Mockito.when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        //installment1 is already paid, the query returns the others in due date order
+        Mockito.when(loanInstallmentRepository.findPayableInstallments(loanId, LocalDate.now().plusMonths(3)))
+                .thenReturn(List.of(installment3, installment2));
+        Mockito.when(loanInstallmentRepository.countByLoanIdAndIsPaidFalse(loanId)).thenReturn(1L);
 
         LoanPaymentResponseDTO response = loanService.payLoan(request);
 
@@ -337,10 +457,264 @@ class LoanServiceImplTest {
         Assertions.assertNull(installment3.getPaymentDate());  // 3. taksit ödenmediği için ödeme tarihi null olmalı
 
 
-        Mockito.verify(loanInstallmentRepository).save(installment2);
+        Mockito.verify(loanInstallmentRepository).saveAll(List.of(installment2));
+        Mockito.verify(loanMetrics).installmentsPaid(1);
+        Mockito.verify(portfolioService).installmentsPaid(List.of(installment2));
         Mockito.verify(loanInstallmentRepository, Mockito.never()).save(installment3);
     }
 
+    @Test
+    void payLoan_shouldChargeAPenaltyForALateInstallment() {
+        Loan loan = payableLoan(1);
+        //10 days late: 1000.00 + 10.00 penalty
+        LoanInstallment installment = unpaidInstallment(loan, LocalDate.now().minusDays(10));
+        Mockito.when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(loan));
+        Mockito.when(loanInstallmentRepository.findPayableInstallments(1L, LocalDate.now().plusMonths(3)))
+                .thenReturn(List.of(installment));
+        Mockito.when(loanInstallmentRepository.countByLoanIdAndIsPaidFalse(1L)).thenReturn(1L, 0L);
+
+        //enough for the installment less a discount, not for the installment with its penalty
+        LoanPaymentResponseDTO shortPayment = loanService.payLoan(new PayLoanRequest(1L, 1009.99));
+        Assertions.assertEquals(0, shortPayment.getPaidInstallments());
+        Assertions.assertFalse(installment.getIsPaid());
+
+        LoanPaymentResponseDTO payment = loanService.payLoan(new PayLoanRequest(1L, 1010.0));
+        Assertions.assertEquals(1, payment.getPaidInstallments());
+        Assertions.assertEquals(0.0, payment.getRemainingAmount());
+        Assertions.assertEquals(101_000L, installment.getPaidAmount());
+        Mockito.verify(loanMetrics).penalty(10.0);
+    }
+
+    @Test
+    void payLoan_shouldKeepTheLoanOpenWhileLaterInstallmentsAreUnpaid() {
+        Loan loan = payableLoan(2);
+        //the second installment is due beyond the 3 months payLoan looks ahead
+        LoanInstallment installment = unpaidInstallment(loan, LocalDate.now());
+        Mockito.when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(loan));
+        Mockito.when(loanInstallmentRepository.findPayableInstallments(1L, LocalDate.now().plusMonths(3)))
+                .thenReturn(List.of(installment));
+        Mockito.when(loanInstallmentRepository.countByLoanIdAndIsPaidFalse(1L)).thenReturn(1L);
+
+        LoanPaymentResponseDTO payment = loanService.payLoan(new PayLoanRequest(1L, 1000.0));
+
+        Assertions.assertEquals(1, payment.getPaidInstallments());
+        Assertions.assertEquals(1L, payment.getUnpaidInstallments());
+        Assertions.assertFalse(loan.getIsPaid());
+        Mockito.verify(customerRepository, Mockito.never()).releaseCreditLimit(Mockito.anyLong(), Mockito.anyLong());
+        Mockito.verify(loanMetrics, Mockito.never()).creditReleased(Mockito.anyDouble());
+    }
+
+    @Test
+    void payLoan_shouldMarkTheLoanPaidAndReleaseItsCreditWhenNoInstallmentIsLeft() {
+        Loan loan = payableLoan(1);
+        LoanInstallment installment = unpaidInstallment(loan, LocalDate.now());
+        Mockito.when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(loan));
+        Mockito.when(loanInstallmentRepository.findPayableInstallments(1L, LocalDate.now().plusMonths(3)))
+                .thenReturn(List.of(installment));
+        Mockito.when(loanInstallmentRepository.countByLoanIdAndIsPaidFalse(1L)).thenReturn(0L);
+
+        LoanPaymentResponseDTO payment = loanService.payLoan(new PayLoanRequest(1L, 1000.0));
+
+        Assertions.assertEquals(0L, payment.getUnpaidInstallments());
+        Assertions.assertTrue(loan.getIsPaid());
+        Mockito.verify(customerRepository).releaseCreditLimit(5L, 100_000L * loan.getNumberOfInstallment());
+        Mockito.verify(loanMetrics).creditReleased(1000.0);
+    }
+
+    //loan 1 of customer 5, with installments of 1000.00
+    private static Loan payableLoan(int numberOfInstallment) {
+        Customer customer = new Customer();
+        customer.setId(5L);
+
+        Loan loan = new Loan();
+        loan.setId(1L);
+        loan.setLoanAmount(100_000L * numberOfInstallment);
+        loan.setNumberOfInstallment(numberOfInstallment);
+        loan.setIsPaid(false);
+        loan.setCustomer(customer);
+        return loan;
+    }
+
+    private static LoanInstallment unpaidInstallment(Loan loan, LocalDate dueDate) {
+        LoanInstallment installment = new LoanInstallment();
+        installment.setId(1L);
+        installment.setAmount(100_000L);
+        installment.setIsPaid(false);
+        installment.setPaidAmount(0L);
+        installment.setDueDate(dueDate);
+        installment.setLoan(loan);
+        return installment;
+    }
+
+    @Test
+    void quotePayment_shouldSettleLikePayLoanWithoutChangingAnything() {
+        Long loanId = 1L;
+        LocalDate paymentDate = LocalDate.of(2025, 1, 1);
+        //10 days late: 1000.00 + 10.00 penalty, 30 days early: 1000.00 - 30.00 discount
+        Mockito.when(loanInstallmentRepository.findPayableInstallmentRows(loanId, paymentDate.plusMonths(3)))
+                .thenReturn(List.of(
+                        new PayableInstallment(1L, 100_000L, LocalDate.of(2024, 12, 22)),
+                        new PayableInstallment(2L, 100_000L, LocalDate.of(2025, 1, 31))));
+        Mockito.when(loanInstallmentRepository.countByLoanIdAndIsPaidFalse(loanId)).thenReturn(2L);
+
+        PaymentQuoteResponseDTO quote = loanService.quotePayment(new PaymentQuoteRequestDTO(loanId, 1000.0, paymentDate));
+
+        //the late installment costs more than the payment and is skipped, the early one is settled
+        Assertions.assertEquals(1980.0, quote.getPayoffAmount());
+        Assertions.assertEquals(1, quote.getSettledInstallments().size());
+        Assertions.assertEquals(2L, quote.getSettledInstallments().get(0).getId());
+        Assertions.assertEquals(-30.0, quote.getSettledInstallments().get(0).getAdjustment());
+        Assertions.assertEquals(970.0, quote.getSettledInstallments().get(0).getPaymentAmount());
+        Assertions.assertEquals(30.0, quote.getRemainingAmount());
+        Assertions.assertEquals(1L, quote.getUnpaidInstallments());
+
+        Mockito.verify(loanInstallmentRepository, Mockito.never()).saveAll(Mockito.anyList());
+        Mockito.verify(loanRepository, Mockito.never()).findByIdForUpdate(loanId);
+        Mockito.verifyNoInteractions(customerRepository, loanMetrics, portfolioService);
+    }
+
+    @Test
+    void quotePayment_withoutAmountShouldQuoteThePayoff() {
+        Long loanId = 1L;
+        LocalDate paymentDate = LocalDate.of(2025, 1, 1);
+        Mockito.when(loanInstallmentRepository.findPayableInstallmentRows(loanId, paymentDate.plusMonths(3)))
+                .thenReturn(List.of(
+                        new PayableInstallment(1L, 100_000L, LocalDate.of(2024, 12, 22)),
+                        new PayableInstallment(2L, 100_000L, LocalDate.of(2025, 1, 31))));
+        Mockito.when(loanInstallmentRepository.countByLoanIdAndIsPaidFalse(loanId)).thenReturn(2L);
+
+        PaymentQuoteResponseDTO quote = loanService.quotePayment(new PaymentQuoteRequestDTO(loanId, null, paymentDate));
+
+        Assertions.assertEquals(1980.0, quote.getPaymentAmount());
+        Assertions.assertEquals(2, quote.getSettledInstallments().size());
+        Assertions.assertEquals(10.0, quote.getSettledInstallments().get(0).getAdjustment());
+        Assertions.assertEquals(0.0, quote.getRemainingAmount());
+        Assertions.assertEquals(0L, quote.getUnpaidInstallments());
+    }
+
+    @Test
+    void quotePayment_unknownLoan() {
+        Mockito.when(loanInstallmentRepository.findPayableInstallmentRows(Mockito.eq(1L), Mockito.any(LocalDate.class)))
+                .thenReturn(List.of());
+        Mockito.when(loanRepository.existsById(1L)).thenReturn(false);
+
+        CreditModuleException exception = Assertions.assertThrows(
+                CreditModuleException.class,
+                () -> loanService.quotePayment(new PaymentQuoteRequestDTO(1L, 100.0, null))
+        );
+
+        Assertions.assertEquals(ErrorMessage.LOAN_NOT_FOUND.getMessage(), exception.getErrorMessage());
+    }
+
+    @Test
+    void createLoans_shouldReportResultPerItem() {
+        ReflectionTestUtils.setField(loanService, "bulkChunkSize", 500);
+
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setCreditLimit(1_000_000L);
+        customer.setUsedCreditLimit(0L);
+
+        CreateLoanRequestDTO first = bulkLoanRequest(1L, 6000.0, 12);
+        CreateLoanRequestDTO unknownCustomer = bulkLoanRequest(2L, 1000.0, 6);
+        CreateLoanRequestDTO overLimit = bulkLoanRequest(1L, 5000.0, 6);
+
+        Mockito.when(transactionTemplate.execute(Mockito.any())).thenAnswer(
+                invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        Mockito.when(validator.validate(Mockito.any(CreateLoanRequestDTO.class))).thenReturn(Collections.emptySet());
+        Mockito.when(customerRepository.findAllByIdForUpdate(Mockito.anyCollection())).thenReturn(List.of(customer));
+        Mockito.when(loanRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Loan> loans = invocation.getArgument(0);
+            loans.forEach(loan -> loan.setId(10L));
+            return loans;
+        });
+
+        BulkLoanResponseDTO response = loanService.createLoans(List.of(first, unknownCustomer, overLimit));
+
+        Assertions.assertEquals(3, response.getTotalCount());
+        Assertions.assertEquals(1, response.getCreatedCount());
+        Assertions.assertEquals(2, response.getFailedCount());
+        Assertions.assertEquals(10L, response.getResults().get(0).getLoanId());
+        Assertions.assertEquals(ErrorMessage.CUSTOMER_NOT_FOUND.getErrorCode(), response.getResults().get(1).getErrorCode());
+        Assertions.assertEquals(ErrorMessage.INSUFFICIENT_CREDIT_LIMIT.getErrorCode(), response.getResults().get(2).getErrorCode());
+        Assertions.assertEquals(600_000L, customer.getUsedCreditLimit());
+        Mockito.verify(loanInstallmentRepository).saveAll(Mockito.<List<LoanInstallment>>argThat(installments -> installments.size() == 12));
+    }
+
+    @Test
+    void createLoans_shouldSplitRequestIntoChunks() {
+        ReflectionTestUtils.setField(loanService, "bulkChunkSize", 2);
+
+        Mockito.when(transactionTemplate.execute(Mockito.any())).thenAnswer(
+                invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        Mockito.when(validator.validate(Mockito.any(CreateLoanRequestDTO.class))).thenReturn(Collections.emptySet());
+        Mockito.when(customerRepository.findAllByIdForUpdate(Mockito.anyCollection())).thenReturn(Collections.emptyList());
+
+        BulkLoanResponseDTO response = loanService.createLoans(List.of(
+                bulkLoanRequest(1L, 100.0, 6), bulkLoanRequest(1L, 100.0, 6), bulkLoanRequest(1L, 100.0, 6)));
+
+        Assertions.assertEquals(3, response.getFailedCount());
+        Assertions.assertEquals(2, response.getResults().get(2).getIndex());
+        Mockito.verify(transactionTemplate, Mockito.times(2)).execute(Mockito.any());
+        Mockito.verify(loanRepository, Mockito.never()).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    void createLoans_shouldCreateLoansInThePartitionOfTheirCustomer() {
+        try (PartitionRouter twoPartitions = new PartitionRouter(2)) {
+            ReflectionTestUtils.setField(loanService, "partitionRouter", twoPartitions);
+            ReflectionTestUtils.setField(loanService, "bulkChunkSize", 500);
+
+            List<Integer> chunkPartitions = new ArrayList<>();
+            Mockito.when(transactionTemplate.execute(Mockito.any())).thenAnswer(invocation -> {
+                chunkPartitions.add(PartitionContext.current(2));
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            });
+            Mockito.when(validator.validate(Mockito.any(CreateLoanRequestDTO.class))).thenReturn(Collections.emptySet());
+            Mockito.when(customerRepository.findAllByIdForUpdate(Mockito.anyCollection())).thenReturn(Collections.emptyList());
+
+            BulkLoanResponseDTO response = loanService.createLoans(List.of(
+                    bulkLoanRequest(1L, 100.0, 6), bulkLoanRequest(2L, 100.0, 6), bulkLoanRequest(3L, 100.0, 6)));
+
+            //customer 2 is in partition 0, customers 1 and 3 share a chunk in partition 1
+            Assertions.assertEquals(List.of(0, 1), chunkPartitions);
+            Mockito.verify(customerRepository).findAllByIdForUpdate(Mockito.argThat(ids -> ids.size() == 2 && ids.contains(3L)));
+            for (int index = 0; index < 3; index++) {
+                Assertions.assertEquals(index, response.getResults().get(index).getIndex());
+            }
+        }
+    }
+
+    private CreateLoanRequestDTO bulkLoanRequest(Long customerId, Double loanAmount, Integer numberOfInstallment) {
+        CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+        request.setCustomerId(customerId);
+        request.setLoanAmount(loanAmount);
+        request.setNumberOfInstallment(numberOfInstallment);
+        request.setInterestRate(0.2);
+        return request;
+    }
+
+    @Test
+    void exportLoans_shouldGroupInstallmentsByLoan() {
+        Loan firstLoan = new Loan(1L, 100_000L, 6, LocalDate.now(), false, 0L, null);
+        Loan secondLoan = new Loan(2L, 200_000L, 6, LocalDate.now(), true, 0L, null);
+        Mockito.when(loanInstallmentRepository.streamByCustomerId(1L)).thenReturn(Stream.of(
+                new LoanInstallment(1L, 10_000L, 0L, LocalDate.of(2025, 1, 1), null, false, 0L, null, false, firstLoan),
+                new LoanInstallment(2L, 10_000L, 0L, LocalDate.of(2025, 2, 1), null, false, 0L, null, false, firstLoan),
+                new LoanInstallment(3L, 20_000L, 20_000L, LocalDate.of(2025, 1, 1), LocalDate.of(2024, 12, 20), true, 0L, null, false, secondLoan)
+        ));
+
+        List<LoanExportDTO> exported = new ArrayList<>();
+        loanService.exportLoans(1L, exported::add);
+
+        Assertions.assertEquals(2, exported.size());
+        Assertions.assertEquals(1L, exported.get(0).getId());
+        Assertions.assertEquals(2, exported.get(0).getInstallments().size());
+        Assertions.assertEquals(2L, exported.get(1).getId());
+        Assertions.assertEquals(3L, exported.get(1).getInstallments().get(0).getId());
+        Mockito.verify(entityManager, Mockito.times(3)).detach(Mockito.any(LoanInstallment.class));
+    }
+
    /* @Test
     void payLoan_allInstallmenstPaid() {
         Long loanId = 1L;
@@ -373,7 +747,7 @@ class LoanServiceImplTest {
         installment2.setPaymentDate(LocalDate.of(2024, 3, 1));
         installment2.setDueDate(LocalDate.of(2024, 3, 1));
 
-        Mockito.when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
+        Mockito.when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
         Mockito.when(loanInstallmentRepository.findByLoanId(loanId))
                 .thenReturn(List.of(installment1, installment2));
 
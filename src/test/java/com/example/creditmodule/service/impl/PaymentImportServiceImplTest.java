@@ -0,0 +1,98 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.response.BulkPaymentItemResultDTO;
+import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
+import com.example.creditmodule.dto.response.PaymentImportResultDTO;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.enums.PaymentFileFormat;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.metrics.PaymentImportMetrics;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.service.LoanService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentImportServiceImplTest {
+
+    @Mock
+    private LoanService loanService;
+
+    @Mock
+    private PaymentImportMetrics paymentImportMetrics;
+
+    @Spy
+    private PartitionRouter partitionRouter = new PartitionRouter(1);
+
+    @InjectMocks
+    private PaymentImportServiceImpl paymentImportService;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(paymentImportService, "importDirectory", directory.toString());
+        ReflectionTestUtils.setField(paymentImportService, "resultDirectory", directory.resolve("results").toString());
+        ReflectionTestUtils.setField(paymentImportService, "chunkSize", 2);
+    }
+
+    @Test
+    void importFile_shouldPayRowsInChunksAndWriteOneResultPerRow() throws IOException {
+        Files.writeString(directory.resolve("payments.csv"), "loanId,paymentAmount\n1,100.00\nbad\n2,50\n3,10.5\n");
+        //loan 3 has nothing to pay, the others pay one installment
+        Mockito.when(loanService.payLoans(Mockito.anyList())).thenAnswer(invocation -> {
+            List<PayLoanRequest> requests = invocation.getArgument(0);
+            List<BulkPaymentItemResultDTO> results = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                PayLoanRequest request = requests.get(i);
+                results.add(request.getLoanId() == 3L
+                        ? new BulkPaymentItemResultDTO(i, null, ErrorMessage.NO_PAYABLE_INSTALLMENTS.getErrorCode(),
+                        ErrorMessage.NO_PAYABLE_INSTALLMENTS.getMessage())
+                        : new BulkPaymentItemResultDTO(i, new LoanPaymentResponseDTO(request.getLoanId(), 600.0, 6, 1,
+                        5L, 0.25, LocalDate.now()), null, null));
+            }
+            return results;
+        });
+
+        PaymentImportResultDTO result = paymentImportService.importFile("payments.csv", PaymentFileFormat.CSV);
+
+        Assertions.assertEquals(4L, result.getTotalRows());
+        Assertions.assertEquals(2L, result.getPaidRows());
+        Assertions.assertEquals(2L, result.getRejectedRows());
+        //the parse error fills a chunk slot without reaching payLoans
+        Mockito.verify(loanService, Mockito.times(2)).payLoans(Mockito.anyList());
+        List<String> lines = Files.readAllLines(directory.resolve("results").resolve(result.getResultFileName()));
+        Assertions.assertEquals(List.of(
+                PaymentImportServiceImpl.RESULT_HEADER,
+                "2,1,100.00,PAID,1,5,0.25,,",
+                "3,,,REJECTED,,,,1016,\"Expected loanId,paymentAmount\"",
+                "4,2,50.00,PAID,1,5,0.25,,",
+                "5,3,10.50,REJECTED,,,,1008,\"There are no payable installments.\""), lines);
+    }
+
+    @Test
+    void importFile_shouldRejectFilesOutsideImportDirectory() {
+        CreditModuleException exception = Assertions.assertThrows(CreditModuleException.class,
+                () -> paymentImportService.importFile("../payments.csv", PaymentFileFormat.CSV));
+
+        Assertions.assertEquals(ErrorMessage.IMPORT_FILE_NOT_FOUND.getErrorCode(), exception.getErrorCode());
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.config.WorkerThreads;
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.response.BulkPaymentItemResultDTO;
+import com.example.creditmodule.dto.response.LoanPaymentResponseDTO;
+import com.example.creditmodule.dto.response.PaymentTicketDTO;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.enums.PaymentStatus;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.exception.PaymentQueueFullException;
+import com.example.creditmodule.metrics.PaymentQueueMetrics;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.service.LoanService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentQueueServiceImplTest {
+
+    //payments of this loan block the only worker until release is counted down
+    private static final long BLOCKING_LOAN_ID = 99L;
+
+    @Mock
+    private LoanService loanService;
+
+    @Mock
+    private PaymentQueueMetrics paymentQueueMetrics;
+
+    @Spy
+    private PartitionRouter partitionRouter = new PartitionRouter(1);
+
+    @Spy
+    private WorkerThreads workerThreads = new WorkerThreads(false);
+
+    @InjectMocks
+    private PaymentQueueServiceImpl paymentQueueService;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        paymentQueueService.stop();
+    }
+
+    @Test
+    void submit_shouldPayABatchInOneTransaction() throws Exception {
+        start(100);
+        blockWorker();
+
+        PaymentTicketDTO first = paymentQueueService.submit(new PayLoanRequest(1L, 100.0));
+        PaymentTicketDTO second = paymentQueueService.submit(new PayLoanRequest(2L, 100.0));
+        PaymentTicketDTO third = paymentQueueService.submit(new PayLoanRequest(1L, 100.0));
+        Assertions.assertEquals(PaymentStatus.QUEUED, first.getStatus());
+        release.countDown();
+
+        Assertions.assertEquals(PaymentStatus.COMPLETED, awaitTicket(first.getTicketId()).getStatus());
+        Assertions.assertEquals(2L, awaitTicket(second.getTicketId()).getPayment().getLoanId());
+        Assertions.assertEquals(PaymentStatus.COMPLETED, awaitTicket(third.getTicketId()).getStatus());
+        //blocking payment, then loans 1 and 2 together
+        Mockito.verify(loanService, Mockito.times(2)).payLoans(Mockito.anyList());
+        Mockito.verify(loanService, Mockito.never()).payLoan(Mockito.any());
+        Mockito.verify(paymentQueueMetrics).batchCommitted(Mockito.eq(3), Mockito.anyLong());
+    }
+
+    @Test
+    void submit_shouldRejectWhenQueueIsFull() throws Exception {
+        start(1);
+        blockWorker();
+
+        paymentQueueService.submit(new PayLoanRequest(1L, 100.0));
+
+        Assertions.assertThrows(PaymentQueueFullException.class,
+                () -> paymentQueueService.submit(new PayLoanRequest(2L, 100.0)));
+        Mockito.verify(paymentQueueMetrics).rejected();
+    }
+
+    @Test
+    void submit_shouldFailOnlyTheRejectedPaymentOfABatch() throws Exception {
+        start(100);
+        blockWorker();
+
+        PaymentTicketDTO paid = paymentQueueService.submit(new PayLoanRequest(1L, 100.0));
+        PaymentTicketDTO rejected = paymentQueueService.submit(new PayLoanRequest(1L, 1.0));
+        release.countDown();
+
+        Assertions.assertEquals(PaymentStatus.COMPLETED, awaitTicket(paid.getTicketId()).getStatus());
+        PaymentTicketDTO failed = awaitTicket(rejected.getTicketId());
+        Assertions.assertEquals(PaymentStatus.FAILED, failed.getStatus());
+        Assertions.assertEquals(ErrorMessage.NO_PAYABLE_INSTALLMENTS.getErrorCode(), failed.getErrorCode());
+        Mockito.verify(loanService, Mockito.never()).payLoan(Mockito.any());
+    }
+
+    @Test
+    void submit_shouldPayOneByOneWhenTheBatchIsRolledBack() throws Exception {
+        start(100);
+        blockWorker();
+        Mockito.when(loanService.payLoans(Mockito.argThat(requests -> requests.size() == 2)))
+                .thenThrow(new IllegalStateException("deadlock"));
+
+        PaymentTicketDTO paid = paymentQueueService.submit(new PayLoanRequest(1L, 100.0));
+        PaymentTicketDTO rejected = paymentQueueService.submit(new PayLoanRequest(2L, 1.0));
+        release.countDown();
+
+        Assertions.assertEquals(PaymentStatus.COMPLETED, awaitTicket(paid.getTicketId()).getStatus());
+        Assertions.assertEquals(ErrorMessage.NO_PAYABLE_INSTALLMENTS.getErrorCode(),
+                awaitTicket(rejected.getTicketId()).getErrorCode());
+        Mockito.verify(loanService, Mockito.times(2)).payLoan(Mockito.any());
+        Mockito.verify(paymentQueueMetrics, Mockito.never()).batchCommitted(Mockito.eq(2), Mockito.anyLong());
+    }
+
+    @Test
+    void submit_shouldNotPayAgainWhenTheOnlyPaymentIsRejected() throws Exception {
+        start(100);
+        blockWorker();
+        Mockito.when(loanService.payLoans(Mockito.argThat(requests -> requests.get(0).getLoanId() == 3L)))
+                .thenThrow(new CreditModuleException(ErrorMessage.LOAN_NOT_FOUND));
+
+        PaymentTicketDTO rejected = paymentQueueService.submit(new PayLoanRequest(3L, 100.0));
+        release.countDown();
+
+        PaymentTicketDTO failed = awaitTicket(rejected.getTicketId());
+        Assertions.assertEquals(PaymentStatus.FAILED, failed.getStatus());
+        Assertions.assertEquals(ErrorMessage.LOAN_NOT_FOUND.getErrorCode(), failed.getErrorCode());
+        Mockito.verify(loanService, Mockito.never()).payLoan(Mockito.any());
+    }
+
+    @Test
+    void submit_shouldFailTheTicketsOfABatchThatBrokeTheWorker() throws Exception {
+        start(100);
+        blockWorker();
+        Mockito.doThrow(new IllegalStateException("broken"))
+                .when(paymentQueueMetrics).batchCommitted(Mockito.eq(2), Mockito.anyLong());
+
+        PaymentTicketDTO first = paymentQueueService.submit(new PayLoanRequest(1L, 100.0));
+        PaymentTicketDTO second = paymentQueueService.submit(new PayLoanRequest(2L, 100.0));
+        release.countDown();
+
+        Assertions.assertEquals(PaymentStatus.FAILED, awaitTicket(first.getTicketId()).getStatus());
+        Assertions.assertEquals("broken", awaitTicket(second.getTicketId()).getErrorMessage());
+    }
+
+    @Test
+    void getTicket_shouldThrowWhenTicketIsUnknown() {
+        start(100);
+
+        CreditModuleException exception = Assertions.assertThrows(CreditModuleException.class,
+                () -> paymentQueueService.getTicket("unknown"));
+
+        Assertions.assertEquals(ErrorMessage.PAYMENT_TICKET_NOT_FOUND.getErrorCode(), exception.getErrorCode());
+    }
+
+    private void start(int capacity) {
+        ReflectionTestUtils.setField(paymentQueueService, "capacity", capacity);
+        ReflectionTestUtils.setField(paymentQueueService, "workers", 1);
+        ReflectionTestUtils.setField(paymentQueueService, "batchSize", 100);
+        ReflectionTestUtils.setField(paymentQueueService, "ticketTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(paymentQueueService, "shutdownTimeout", Duration.ofSeconds(5));
+        paymentQueueService.start();
+    }
+
+    //pays everything, except payments below 10.0 which are rejected like payments that settle no installment
+    private void blockWorker() throws InterruptedException {
+        Mockito.lenient().when(loanService.payLoans(Mockito.anyList())).thenAnswer(invocation -> {
+            List<PayLoanRequest> requests = invocation.getArgument(0);
+            List<BulkPaymentItemResultDTO> results = new ArrayList<>(requests.size());
+            for (int index = 0; index < requests.size(); index++) {
+                PayLoanRequest request = requests.get(index);
+                await(request);
+                results.add(request.getPaymentAmount() < 10.0
+                        ? new BulkPaymentItemResultDTO(index, null, ErrorMessage.NO_PAYABLE_INSTALLMENTS.getErrorCode(),
+                        ErrorMessage.NO_PAYABLE_INSTALLMENTS.getMessage())
+                        : new BulkPaymentItemResultDTO(index, paymentOf(request), null, null));
+            }
+            return results;
+        });
+        Mockito.lenient().when(loanService.payLoan(Mockito.any())).thenAnswer(invocation -> {
+            PayLoanRequest request = invocation.getArgument(0);
+            await(request);
+            if (request.getPaymentAmount() < 10.0) {
+                throw new CreditModuleException(ErrorMessage.NO_PAYABLE_INSTALLMENTS);
+            }
+            return paymentOf(request);
+        });
+        paymentQueueService.submit(new PayLoanRequest(BLOCKING_LOAN_ID, 100.0));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private void await(PayLoanRequest request) throws InterruptedException {
+        if (request.getLoanId() == BLOCKING_LOAN_ID) {
+            started.countDown();
+            release.await();
+        }
+    }
+
+    private static LoanPaymentResponseDTO paymentOf(PayLoanRequest request) {
+        return new LoanPaymentResponseDTO(request.getLoanId(), request.getPaymentAmount(), 6, 1, 5L, 0.0, LocalDate.now());
+    }
+
+    private PaymentTicketDTO awaitTicket(String ticketId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        PaymentTicketDTO ticket = paymentQueueService.getTicket(ticketId);
+        while (ticket.getStatus() == PaymentStatus.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            ticket = paymentQueueService.getTicket(ticketId);
+        }
+        return ticket;
+    }
+}
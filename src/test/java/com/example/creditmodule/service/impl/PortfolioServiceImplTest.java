@@ -0,0 +1,86 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.dto.response.PortfolioSummaryDTO;
+import com.example.creditmodule.entity.Customer;
+import com.example.creditmodule.entity.Loan;
+import com.example.creditmodule.entity.LoanInstallment;
+import com.example.creditmodule.entity.PortfolioBucket;
+import com.example.creditmodule.enums.ErrorMessage;
+import com.example.creditmodule.exception.CreditModuleException;
+import com.example.creditmodule.partition.PartitionRouter;
+import com.example.creditmodule.repository.CustomerRepository;
+import com.example.creditmodule.repository.PortfolioBucketRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioServiceImplTest {
+
+    @Mock
+    private PortfolioBucketRepository portfolioBucketRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Spy
+    private PartitionRouter partitionRouter = new PartitionRouter(1);
+
+    @InjectMocks
+    private PortfolioServiceImpl portfolioService;
+
+    @Test
+    void installmentsPaid_shouldSubtractFromCustomerBuckets() {
+        Customer customer = new Customer();
+        customer.setId(7L);
+        Loan loan = new Loan(1L, 100_000L, 6, LocalDate.now(), false, 0L, customer);
+        LocalDate dueDate = LocalDate.of(2025, 2, 1);
+        List<LoanInstallment> installments = List.of(
+                new LoanInstallment(1L, 20_000L, 20_000L, dueDate, LocalDate.now(), true, 0L, null, false, loan));
+
+        portfolioService.installmentsPaid(installments);
+
+        Mockito.verify(portfolioBucketRepository).addToBuckets(Mockito.<Collection<PortfolioBucket>>argThat(deltas ->
+                deltas.size() == 1 && deltas.contains(new PortfolioBucket(7L, dueDate, -20_000L, -1))));
+    }
+
+    @Test
+    void getSummary_shouldSplitOutstandingByDueDate() {
+        LocalDate today = LocalDate.now();
+        Mockito.when(portfolioBucketRepository.sumTotals()).thenReturn(List.of(
+                new PortfolioBucket(PortfolioBucket.ALL_CUSTOMERS, today.minusMonths(1).withDayOfMonth(1), 10_000L, 1),
+                new PortfolioBucket(PortfolioBucket.ALL_CUSTOMERS, today.withDayOfMonth(1).plusMonths(1).minusDays(1), 20_000L, 2),
+                new PortfolioBucket(PortfolioBucket.ALL_CUSTOMERS, today.plusMonths(2).withDayOfMonth(1), 40_000L, 4)));
+
+        PortfolioSummaryDTO summary = portfolioService.getSummary(null);
+
+        Assertions.assertEquals(700.0, summary.getOutstandingAmount());
+        Assertions.assertEquals(100.0, summary.getOverdueAmount());
+        Assertions.assertEquals(200.0, summary.getDueThisMonthAmount());
+        Assertions.assertEquals(7L, summary.getUnpaidInstallments());
+        Mockito.verify(customerRepository, Mockito.never()).existsById(Mockito.any());
+    }
+
+    @Test
+    void getSummary_shouldThrowExceptionIfCustomerNotFound() {
+        Mockito.when(portfolioBucketRepository.findByCustomerId(99L)).thenReturn(Collections.emptyList());
+        Mockito.when(customerRepository.existsById(99L)).thenReturn(false);
+
+        CreditModuleException exception = Assertions.assertThrows(
+                CreditModuleException.class,
+                () -> portfolioService.getSummary(99L)
+        );
+
+        Assertions.assertEquals(ErrorMessage.CUSTOMER_NOT_FOUND.getMessage(), exception.getErrorMessage());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.creditmodule.service.impl;
+
+import com.example.creditmodule.dto.request.CreateCustomerRequestDto;
+import com.example.creditmodule.dto.request.CreateLoanRequestDTO;
+import com.example.creditmodule.dto.request.PayLoanRequest;
+import com.example.creditmodule.dto.response.PortfolioRebuildResultDTO;
+import com.example.creditmodule.dto.response.PortfolioSummaryDTO;
+import com.example.creditmodule.entity.Loan;
+import com.example.creditmodule.entity.PortfolioBucket;
+import com.example.creditmodule.repository.PortfolioBucketRepository;
+import com.example.creditmodule.service.CustomerService;
+import com.example.creditmodule.service.LoanService;
+import com.example.creditmodule.service.PortfolioService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:portfolio")
+class PortfolioSummaryIntegrationTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private PortfolioBucketRepository portfolioBucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void summary_shouldFollowLoansAndPaymentsAndSurviveRebuild() {
+        Long customerId = customerService.createCustomer(
+                new CreateCustomerRequestDto("portfolio", "customer", 100_000.0, 0.0)).getId();
+        //1200.00 over 6 installments of 200.00 and 2400.00 over 12 installments of 200.00
+        Loan loan = loanService.createLoan(loanRequest(customerId, 1000.0, 6));
+        loanService.createLoans(List.of(loanRequest(customerId, 2000.0, 12)));
+
+        PortfolioSummaryDTO summary = portfolioService.getSummary(customerId);
+        Assertions.assertEquals(3600.0, summary.getOutstandingAmount());
+        Assertions.assertEquals(18L, summary.getUnpaidInstallments());
+        Assertions.assertEquals(0.0, summary.getOverdueAmount());
+
+        //the first installment is due next month, paying it early gives a discount but settles all of 200.00
+        loanService.payLoan(new PayLoanRequest(loan.getId(), 200.0));
+        summary = portfolioService.getSummary(customerId);
+        Assertions.assertEquals(3400.0, summary.getOutstandingAmount());
+        Assertions.assertEquals(17L, summary.getUnpaidInstallments());
+        Assertions.assertEquals(3400.0, portfolioService.getSummary(null).getOutstandingAmount());
+
+        PortfolioRebuildResultDTO verified = portfolioService.rebuild();
+        Assertions.assertEquals(0, verified.getBucketsRepaired());
+
+        //a drifted bucket is put back to what the installments say
+        PortfolioBucket bucket = portfolioBucketRepository.findByCustomerId(customerId).get(0);
+        bucket.setUnpaidAmount(bucket.getUnpaidAmount() + 1);
+        portfolioBucketRepository.save(bucket);
+        PortfolioRebuildResultDTO repaired = portfolioService.rebuild();
+        Assertions.assertEquals(1, repaired.getBucketsRepaired());
+        Assertions.assertEquals(3400.0, portfolioService.getSummary(customerId).getOutstandingAmount());
+        Assertions.assertEquals(3400.0, portfolioService.getSummary(null).getOutstandingAmount());
+
+        //and a missing bucket is created again, the first due date still holds 200.00 of the second loan
+        jdbcTemplate.update("delete from portfolio_bucket where customer_id = ? and due_date = " +
+                "(select min(due_date) from portfolio_bucket where customer_id = ?)", customerId, customerId);
+        Assertions.assertEquals(3200.0, portfolioService.getSummary(customerId).getOutstandingAmount());
+        Assertions.assertEquals(1, portfolioService.rebuild().getBucketsRepaired());
+        Assertions.assertEquals(3400.0, portfolioService.getSummary(customerId).getOutstandingAmount());
+
+        //so is a drifted total, whichever stripes hold the due date
+        jdbcTemplate.update("update portfolio_total set unpaid_amount = unpaid_amount + 100 " +
+                "where due_date = (select min(due_date) from portfolio_total)");
+        Assertions.assertEquals(1, portfolioService.rebuild().getBucketsRepaired());
+        Assertions.assertEquals(3400.0, portfolioService.getSummary(null).getOutstandingAmount());
+    }
+
+    private CreateLoanRequestDTO loanRequest(Long customerId, double loanAmount, int numberOfInstallment) {
+        CreateLoanRequestDTO request = new CreateLoanRequestDTO();
+        request.setCustomerId(customerId);
+        request.setLoanAmount(loanAmount);
+        request.setNumberOfInstallment(numberOfInstallment);
+        request.setInterestRate(0.2);
+        return request;
+    }
+}